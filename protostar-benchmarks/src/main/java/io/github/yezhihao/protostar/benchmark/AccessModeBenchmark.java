@@ -0,0 +1,58 @@
+package io.github.yezhihao.protostar.benchmark;
+
+import io.github.yezhihao.protostar.AccessMode;
+import io.github.yezhihao.protostar.ProtostarUtil;
+import io.github.yezhihao.protostar.convert.PressureTest;
+import io.github.yezhihao.protostar.convert.T0200;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不同AccessMode构建的T0200读写
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessModeBenchmark {
+
+    @Param
+    public AccessMode mode;
+
+    private RuntimeSchema<T0200> schema;
+    private T0200 message;
+    private ByteBuf input;
+    private ByteBuf output;
+
+    @Setup
+    public void setup() {
+        schema = ProtostarUtil.getRuntimeSchema(new HashMap<>(), T0200.class, mode).get(0);
+        message = PressureTest.foo();
+        message.setAttributes(null);
+        input = Unpooled.buffer(256);
+        output = Unpooled.buffer(256);
+        schema.writeTo(input, message);
+    }
+
+    @Benchmark
+    public T0200 read() {
+        input.readerIndex(0);
+        return schema.readFrom(input);
+    }
+
+    @Benchmark
+    public ByteBuf write() {
+        output.clear();
+        schema.writeTo(output, message);
+        return output;
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.yezhihao.protostar.benchmark;
+
+import io.github.yezhihao.protostar.Schema;
+import io.github.yezhihao.protostar.schema.ArraySchema;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基本类型数组读写
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArraySchemaBenchmark {
+
+    @Param({"byte", "char", "short", "int", "long", "float", "double", "intLE", "longLE"})
+    public String type;
+
+    @Param({"1024"})
+    public int size;
+
+    @Param
+    public BufferType bufferType;
+
+    private Schema<Object> schema;
+    private Object value;
+    private ByteBuf input;
+    private ByteBuf output;
+
+    @Setup
+    public void setup() {
+        switch (type) {
+            case "byte":
+                schema = (Schema) ArraySchema.BYTES;
+                value = new byte[size];
+                break;
+            case "char":
+                schema = (Schema) ArraySchema.CHARS;
+                value = new char[size];
+                break;
+            case "short":
+                schema = (Schema) ArraySchema.SHORTS;
+                value = new short[size];
+                break;
+            case "int":
+                schema = (Schema) ArraySchema.INTS;
+                value = new int[size];
+                break;
+            case "long":
+                schema = (Schema) ArraySchema.LONGS;
+                value = new long[size];
+                break;
+            case "intLE":
+                schema = (Schema) ArraySchema.INTS_LE;
+                value = new int[size];
+                break;
+            case "longLE":
+                schema = (Schema) ArraySchema.LONGS_LE;
+                value = new long[size];
+                break;
+            case "float":
+                schema = (Schema) ArraySchema.FLOATS;
+                value = new float[size];
+                break;
+            default:
+                schema = (Schema) ArraySchema.DOUBLES;
+                value = new double[size];
+        }
+        input = bufferType.allocate(size << 3);
+        output = bufferType.allocate(size << 3);
+        schema.writeTo(input, value);
+    }
+
+    @TearDown
+    public void tearDown() {
+        input.release();
+        output.release();
+    }
+
+    @Benchmark
+    public Object read() {
+        input.readerIndex(0);
+        return schema.readFrom(input);
+    }
+
+    @Benchmark
+    public ByteBuf write() {
+        output.clear();
+        schema.writeTo(output, value);
+        return output;
+    }
+}
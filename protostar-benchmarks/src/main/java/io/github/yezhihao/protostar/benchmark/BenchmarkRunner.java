@@ -0,0 +1,27 @@
+package io.github.yezhihao.protostar.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 默认开启GC分析器，输出ops/s与gc.alloc.rate.norm(每次操作分配的字节数)
+ * java -jar target/benchmarks.jar [JMH参数，如 RuntimeSchemaBenchmark -p bufferType=POOLED]
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
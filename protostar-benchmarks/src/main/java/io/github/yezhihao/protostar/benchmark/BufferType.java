@@ -0,0 +1,34 @@
+package io.github.yezhihao.protostar.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+/**
+ * 被测缓冲区类型
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public enum BufferType {
+
+    HEAP {
+        @Override
+        public ByteBuf allocate(int capacity) {
+            return Unpooled.buffer(capacity);
+        }
+    },
+    DIRECT {
+        @Override
+        public ByteBuf allocate(int capacity) {
+            return Unpooled.directBuffer(capacity);
+        }
+    },
+    POOLED {
+        @Override
+        public ByteBuf allocate(int capacity) {
+            return PooledByteBufAllocator.DEFAULT.directBuffer(capacity);
+        }
+    };
+
+    public abstract ByteBuf allocate(int capacity);
+}
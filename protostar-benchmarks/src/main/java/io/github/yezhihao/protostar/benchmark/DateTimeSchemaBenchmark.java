@@ -0,0 +1,62 @@
+package io.github.yezhihao.protostar.benchmark;
+
+import io.github.yezhihao.protostar.Schema;
+import io.github.yezhihao.protostar.schema.DateTimeSchema;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DateTimeSchema BCD/BYTE编码读写
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateTimeSchemaBenchmark {
+
+    @Param({"BCD", "BYTE"})
+    public String charset;
+
+    @Param
+    public BufferType bufferType;
+
+    private Schema<LocalDateTime> schema;
+    private LocalDateTime value;
+    private ByteBuf input;
+    private ByteBuf output;
+
+    @Setup
+    public void setup() {
+        schema = "BCD".equals(charset) ? DateTimeSchema.BCD_DATETIME : DateTimeSchema.BYTE_DATETIME;
+        value = LocalDateTime.of(2020, 7, 7, 19, 23, 59);
+        input = bufferType.allocate(16);
+        output = bufferType.allocate(16);
+        schema.writeTo(input, value);
+    }
+
+    @TearDown
+    public void tearDown() {
+        input.release();
+        output.release();
+    }
+
+    @Benchmark
+    public LocalDateTime read() {
+        input.readerIndex(0);
+        return schema.readFrom(input);
+    }
+
+    @Benchmark
+    public ByteBuf write() {
+        output.clear();
+        schema.writeTo(output, value);
+        return output;
+    }
+}
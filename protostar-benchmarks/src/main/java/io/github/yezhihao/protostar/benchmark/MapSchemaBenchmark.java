@@ -0,0 +1,122 @@
+package io.github.yezhihao.protostar.benchmark;
+
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.convert.AttributeSchema;
+import io.github.yezhihao.protostar.convert.PressureTest;
+import io.github.yezhihao.protostar.schema.MapSchema;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.github.yezhihao.protostar.util.KeyValuePair;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MapSchema单个键值对，MapField(无界)与TotalMapField(前置数量)读写
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapSchemaBenchmark {
+
+    @Param
+    public BufferType bufferType;
+
+    private MapSchema<Number, Object> mapSchema;
+    private KeyValuePair<Number, Object> entry;
+    private RuntimeSchema<Attributes> mapFieldSchema;
+    private RuntimeSchema<TotalAttributes> totalMapFieldSchema;
+    private Attributes attributes;
+    private TotalAttributes totalAttributes;
+
+    private ByteBuf entryInput;
+    private ByteBuf mapFieldInput;
+    private ByteBuf totalMapFieldInput;
+    private ByteBuf output;
+
+    @Setup
+    public void setup() {
+        Map<Integer, Object> map = PressureTest.foo().getAttributes();
+        mapSchema = new AttributeSchema();
+        entry = new KeyValuePair<>(1);
+        entry.setValue(123);
+        mapFieldSchema = SingleVersionUtil.getRuntimeSchema(Attributes.class);
+        totalMapFieldSchema = SingleVersionUtil.getRuntimeSchema(TotalAttributes.class);
+        attributes = new Attributes();
+        attributes.attributes = map;
+        totalAttributes = new TotalAttributes();
+        totalAttributes.attributes = map;
+
+        entryInput = bufferType.allocate(16);
+        mapFieldInput = bufferType.allocate(64);
+        totalMapFieldInput = bufferType.allocate(64);
+        output = bufferType.allocate(64);
+        mapSchema.writeTo(entryInput, entry);
+        mapFieldSchema.writeTo(mapFieldInput, attributes);
+        totalMapFieldSchema.writeTo(totalMapFieldInput, totalAttributes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        entryInput.release();
+        mapFieldInput.release();
+        totalMapFieldInput.release();
+        output.release();
+    }
+
+    @Benchmark
+    public Map.Entry<Number, Object> readMapSchema() {
+        entryInput.readerIndex(0);
+        return mapSchema.readFrom(entryInput);
+    }
+
+    @Benchmark
+    public ByteBuf writeMapSchema() {
+        output.clear();
+        mapSchema.writeTo(output, entry);
+        return output;
+    }
+
+    @Benchmark
+    public Attributes readMapField() {
+        mapFieldInput.readerIndex(0);
+        return mapFieldSchema.readFrom(mapFieldInput);
+    }
+
+    @Benchmark
+    public ByteBuf writeMapField() {
+        output.clear();
+        mapFieldSchema.writeTo(output, attributes);
+        return output;
+    }
+
+    @Benchmark
+    public TotalAttributes readTotalMapField() {
+        totalMapFieldInput.readerIndex(0);
+        return totalMapFieldSchema.readFrom(totalMapFieldInput);
+    }
+
+    @Benchmark
+    public ByteBuf writeTotalMapField() {
+        output.clear();
+        totalMapFieldSchema.writeTo(output, totalAttributes);
+        return output;
+    }
+
+    public static class Attributes {
+        @Field(converter = AttributeSchema.class)
+        private Map<Integer, Object> attributes;
+    }
+
+    public static class TotalAttributes {
+        @Field(totalUnit = 1, converter = AttributeSchema.class)
+        private Map<Integer, Object> attributes;
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.yezhihao.protostar.benchmark;
+
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 包装类型字段(NumberSchema)与基本类型字段(NumberPSchema)对比
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberSchemaBenchmark {
+
+    @Param
+    public BufferType bufferType;
+
+    private RuntimeSchema<Primitive> primitiveSchema;
+    private RuntimeSchema<Boxed> boxedSchema;
+    private Primitive primitive;
+    private Boxed boxed;
+    private ByteBuf primitiveInput;
+    private ByteBuf boxedInput;
+    private ByteBuf output;
+
+    @Setup
+    public void setup() {
+        primitiveSchema = SingleVersionUtil.getRuntimeSchema(Primitive.class);
+        boxedSchema = SingleVersionUtil.getRuntimeSchema(Boxed.class);
+        primitive = new Primitive();
+        primitive.a = 1;
+        primitive.b = 2;
+        primitive.c = 3;
+        primitive.d = 4;
+        primitive.e = 5;
+        primitive.f = 6.0;
+        boxed = new Boxed();
+        boxed.a = 1;
+        boxed.b = 2;
+        boxed.c = 3L;
+        boxed.d = 4;
+        boxed.e = 5L;
+        boxed.f = 6.0;
+
+        primitiveInput = bufferType.allocate(64);
+        boxedInput = bufferType.allocate(64);
+        output = bufferType.allocate(64);
+        primitiveSchema.writeTo(primitiveInput, primitive);
+        boxedSchema.writeTo(boxedInput, boxed);
+    }
+
+    @TearDown
+    public void tearDown() {
+        primitiveInput.release();
+        boxedInput.release();
+        output.release();
+    }
+
+    @Benchmark
+    public Primitive readPrimitive() {
+        primitiveInput.readerIndex(0);
+        return primitiveSchema.readFrom(primitiveInput);
+    }
+
+    @Benchmark
+    public ByteBuf writePrimitive() {
+        output.clear();
+        primitiveSchema.writeTo(output, primitive);
+        return output;
+    }
+
+    @Benchmark
+    public Boxed readBoxed() {
+        boxedInput.readerIndex(0);
+        return boxedSchema.readFrom(boxedInput);
+    }
+
+    @Benchmark
+    public ByteBuf writeBoxed() {
+        output.clear();
+        boxedSchema.writeTo(output, boxed);
+        return output;
+    }
+
+    public static class Primitive {
+        @Field(length = 1)
+        private int a;
+        @Field(length = 2)
+        private int b;
+        @Field(length = 4)
+        private long c;
+        @Field(length = 4)
+        private int d;
+        @Field(length = 8)
+        private long e;
+        @Field
+        private double f;
+    }
+
+    public static class Boxed {
+        @Field(length = 1)
+        private Integer a;
+        @Field(length = 2)
+        private Integer b;
+        @Field(length = 4)
+        private Long c;
+        @Field(length = 4)
+        private Integer d;
+        @Field(length = 8)
+        private Long e;
+        @Field
+        private Double f;
+    }
+}
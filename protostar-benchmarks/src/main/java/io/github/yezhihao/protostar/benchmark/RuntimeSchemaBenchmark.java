@@ -0,0 +1,116 @@
+package io.github.yezhihao.protostar.benchmark;
+
+import io.github.yezhihao.protostar.ProtostarUtil;
+import io.github.yezhihao.protostar.convert.PressureTest;
+import io.github.yezhihao.protostar.convert.T0200;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.github.yezhihao.protostar.util.Explain;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * T0200多版本读写，包含Explain分析模式
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuntimeSchemaBenchmark {
+
+    /** -1版本全部为定长字段 */
+    @Param({"-1", "0", "1"})
+    public int version;
+
+    @Param
+    public BufferType bufferType;
+
+    private static final PooledByteBufAllocator HEAP = new PooledByteBufAllocator(false);
+
+    private RuntimeSchema<T0200> schema;
+    private T0200 message;
+    private ByteBuf input;
+    private ByteBuf output;
+
+    @Setup
+    public void setup() {
+        schema = ProtostarUtil.getRuntimeSchema(T0200.class, version);
+        message = PressureTest.foo();
+        input = bufferType.allocate(256);
+        output = bufferType.allocate(256);
+        schema.writeTo(input, message);
+    }
+
+    @TearDown
+    public void tearDown() {
+        input.release();
+        output.release();
+    }
+
+    @Benchmark
+    public T0200 read() {
+        input.readerIndex(0);
+        return schema.readFrom(input);
+    }
+
+    @Benchmark
+    public T0200 readPooled() {
+        input.readerIndex(0);
+        T0200 result = schema.readPooled(input);
+        schema.recycle(result);
+        return result;
+    }
+
+    @Benchmark
+    public ByteBuf write() {
+        output.clear();
+        schema.writeTo(output, message);
+        return output;
+    }
+
+    /** README中的用法，每次新建32字节的缓冲区，写入时扩容 */
+    @Benchmark
+    public int writeUnpooled() {
+        ByteBuf buf = Unpooled.buffer(32);
+        schema.writeTo(buf, message);
+        int size = buf.readableBytes();
+        buf.release();
+        return size;
+    }
+
+    @Benchmark
+    public int encode() {
+        ByteBuf buf = schema.encode(message);
+        int size = buf.readableBytes();
+        buf.release();
+        return size;
+    }
+
+    @Benchmark
+    public int encodeHeap() {
+        ByteBuf buf = schema.encode(message, HEAP);
+        int size = buf.readableBytes();
+        buf.release();
+        return size;
+    }
+
+    @Benchmark
+    public T0200 readExplain() {
+        input.readerIndex(0);
+        return schema.readFrom(input, new Explain());
+    }
+
+    @Benchmark
+    public ByteBuf writeExplain() {
+        output.clear();
+        schema.writeTo(output, message, new Explain());
+        return output;
+    }
+}
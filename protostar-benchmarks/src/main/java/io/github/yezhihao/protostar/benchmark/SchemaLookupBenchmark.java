@@ -0,0 +1,52 @@
+package io.github.yezhihao.protostar.benchmark;
+
+import io.github.yezhihao.protostar.ProtostarUtil;
+import io.github.yezhihao.protostar.SchemaManager;
+import io.github.yezhihao.protostar.convert.T0200;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按消息类型、消息ID查找Schema
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaLookupBenchmark {
+
+    private SchemaManager manager;
+    private Class<?> typeClass;
+    private int typeId;
+    private int version;
+
+    @Setup
+    public void setup() {
+        manager = new SchemaManager();
+        manager.loadRuntimeSchema(0x0200, T0200.class);
+        typeClass = T0200.class;
+        typeId = 0x0200;
+        version = 1;
+    }
+
+    @Benchmark
+    public RuntimeSchema managerByClass() {
+        return manager.getRuntimeSchema(typeClass, version);
+    }
+
+    @Benchmark
+    public RuntimeSchema utilByClass() {
+        return ProtostarUtil.getRuntimeSchema(typeClass, version);
+    }
+
+    @Benchmark
+    public RuntimeSchema managerById() {
+        return manager.getRuntimeSchema(typeId, version);
+    }
+}
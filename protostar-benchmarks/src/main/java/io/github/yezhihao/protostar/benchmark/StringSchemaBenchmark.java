@@ -0,0 +1,76 @@
+package io.github.yezhihao.protostar.benchmark;
+
+import io.github.yezhihao.protostar.field.BasicField;
+import io.github.yezhihao.protostar.schema.StringSchema;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StringSchema.STR/HEX/BCD定长读写
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringSchemaBenchmark {
+
+    @Param({"BCD", "HEX", "GBK", "UTF-8", "US-ASCII"})
+    public String charset;
+
+    @Param
+    public BufferType bufferType;
+
+    private BasicField<String> schema;
+    private String value;
+    private ByteBuf input;
+    private ByteBuf output;
+
+    @Setup
+    public void setup() {
+        switch (charset) {
+            case "BCD":
+                schema = StringSchema.getInstance(charset, 6, -1);
+                value = "13800138000";
+                break;
+            case "HEX":
+                schema = StringSchema.getInstance(charset, 6, -1);
+                value = "0a1b2c3d4e5f";
+                break;
+            case "US-ASCII":
+                schema = StringSchema.getInstance(charset, 20, -1);
+                value = "VIN1234567890";
+                break;
+            default:
+                schema = StringSchema.getInstance(charset, 20, -1);
+                value = "粤B12345测试";
+        }
+        input = bufferType.allocate(32);
+        output = bufferType.allocate(32);
+        schema.writeTo(input, value);
+    }
+
+    @TearDown
+    public void tearDown() {
+        input.release();
+        output.release();
+    }
+
+    @Benchmark
+    public String read() {
+        input.readerIndex(0);
+        return schema.readFrom(input);
+    }
+
+    @Benchmark
+    public ByteBuf write() {
+        output.clear();
+        schema.writeTo(output, value);
+        return output;
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.yezhihao.protostar;
+
+/**
+ * 字段访问方式，在构建Schema时指定，构建后不再改变
+ * 全局缓存使用启动参数 -Dprotostar.accessMode=GENERATED 指定的方式，未指定或无法识别时为REFLECT
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public enum AccessMode {
+
+    /** 使用java.lang.reflect.Field读写 */
+    REFLECT,
+    /** 使用MethodHandle读写，不在运行时定义类 */
+    HANDLE,
+    /** 为每个版本的RuntimeSchema生成隐藏类直接读写字段，生成失败或无法直接访问的字段使用HANDLE */
+    GENERATED;
+
+    private static final AccessMode DEFAULT = parse(System.getProperty("protostar.accessMode"));
+
+    /** 启动参数指定的访问方式，未指定时为REFLECT */
+    public static AccessMode get() {
+        return DEFAULT;
+    }
+
+    /** 忽略大小写与首尾空白，null或无法识别时返回REFLECT */
+    public static AccessMode parse(String name) {
+        if (name != null) {
+            name = name.trim();
+            for (AccessMode mode : values())
+                if (mode.name().equalsIgnoreCase(name))
+                    return mode;
+        }
+        return REFLECT;
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.yezhihao.protostar;
+
+/**
+ * 字节序，作用于数值、基本类型数组以及前置长度、数量
+ * 日期按字节(BYTE/BCD)逐位编码，不受字节序影响
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public enum Endian {
+
+    /** 字段上使用时跟随所在消息，消息上使用时同BIG */
+    DEFAULT,
+    /** 大端，高位在前 */
+    BIG,
+    /** 小端，低位在前 */
+    LITTLE
+}
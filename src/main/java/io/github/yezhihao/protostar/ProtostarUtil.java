@@ -8,8 +8,10 @@ import io.github.yezhihao.protostar.schema.RuntimeSchema;
 import io.github.yezhihao.protostar.schema.SchemaRegistry;
 import io.github.yezhihao.protostar.util.ArrayMap;
 import io.github.yezhihao.protostar.util.ClassUtils;
+import io.github.yezhihao.protostar.util.SchemaCache;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * 多版本Schema加载器
@@ -18,29 +20,41 @@ import java.util.*;
  */
 public class ProtostarUtil {
 
-    private static final Map<String, ArrayMap<RuntimeSchema>> CACHE = new WeakHashMap<>();
+    /** 全局缓存，线程安全，嵌套类型同样从该缓存获取，使用启动参数指定的AccessMode */
+    private static final SchemaCache<ArrayMap<RuntimeSchema>> CACHE = new SchemaCache<>(typeClass -> build(typeClass, null, ProtostarUtil::getRuntimeSchema, AccessMode.get()));
 
     public static ArrayMap<RuntimeSchema> getRuntimeSchema(Class typeClass) {
-        return getRuntimeSchema(CACHE, typeClass);
+        return CACHE.get(typeClass);
     }
 
     public static RuntimeSchema getRuntimeSchema(Class typeClass, int version) {
-        ArrayMap<RuntimeSchema> schemaMap = getRuntimeSchema(CACHE, typeClass);
+        ArrayMap<RuntimeSchema> schemaMap = CACHE.get(typeClass);
         if (schemaMap == null) return null;
         return schemaMap.getOrDefault(version);
     }
 
+    /** 构建到调用方提供的root中，以类名为key，与全局缓存隔离，root非线程安全 */
     public static ArrayMap<RuntimeSchema> getRuntimeSchema(Map<String, ArrayMap<RuntimeSchema>> root, final Class typeClass) {
+        return getRuntimeSchema(root, typeClass, AccessMode.get());
+    }
+
+    /** 同上，root中的Schema(包括嵌套类型)使用指定的AccessMode */
+    public static ArrayMap<RuntimeSchema> getRuntimeSchema(Map<String, ArrayMap<RuntimeSchema>> root, final Class typeClass, AccessMode mode) {
         ArrayMap<RuntimeSchema> schemaMap = root.get(typeClass.getName());
         //不支持循环引用
         if (schemaMap != null) return schemaMap;
+        return build(typeClass, root, type -> getRuntimeSchema(root, type, mode), mode);
+    }
 
+    private static ArrayMap<RuntimeSchema> build(Class typeClass, Map<String, ArrayMap<RuntimeSchema>> root, Function<Class, ArrayMap<RuntimeSchema>> nested, AccessMode mode) {
         List<java.lang.reflect.Field> fs = findFields(typeClass);
         if (fs.isEmpty()) return null;
 
-        root.put(typeClass.getName(), schemaMap = new ArrayMap<>());
+        ArrayMap<RuntimeSchema> schemaMap = new ArrayMap<>();
+        if (root != null)
+            root.put(typeClass.getName(), schemaMap);
 
-        Map<Integer, Set<BasicField>> multiVersionFields = findMultiVersionFields(root, fs);
+        Map<Integer, Set<BasicField>> multiVersionFields = findMultiVersionFields(nested, fs, SchemaRegistry.getEndian(typeClass), mode);
         Set<BasicField> defFields = multiVersionFields.get(Integer.MAX_VALUE);
         for (Map.Entry<Integer, Set<BasicField>> entry : multiVersionFields.entrySet()) {
 
@@ -56,11 +70,10 @@ public class ProtostarUtil {
             BasicField[] fields = fieldList.toArray(new BasicField[fieldList.size()]);
             Arrays.sort(fields);
 
-            RuntimeSchema schema = new RuntimeSchema(typeClass, version, fields);
+            RuntimeSchema schema = new RuntimeSchema(typeClass, version, fields, mode);
             schemaMap.put(version, schema);
         }
-        root.put(typeClass.getName(), schemaMap.fillDefaultValue());
-        return schemaMap;
+        return schemaMap.fillDefaultValue();
     }
 
     private static List<java.lang.reflect.Field> findFields(Class typeClass) {
@@ -91,7 +104,7 @@ public class ProtostarUtil {
         return result;
     }
 
-    private static Map<Integer, Set<BasicField>> findMultiVersionFields(Map<String, ArrayMap<RuntimeSchema>> root, List<java.lang.reflect.Field> fs) {
+    private static Map<Integer, Set<BasicField>> findMultiVersionFields(Function<Class, ArrayMap<RuntimeSchema>> nested, List<java.lang.reflect.Field> fs, Endian endian, AccessMode mode) {
         final int size = fs.size();
         Map<Integer, Set<BasicField>> multiVersionFields = new TreeMap<Integer, Set<BasicField>>() {
             @Override
@@ -107,31 +120,31 @@ public class ProtostarUtil {
 
             Field fa = f.getDeclaredAnnotation(Field.class);
             if (fa != null) {
-                fillField(root, multiVersionFields, fa, f, i);
+                fillField(nested, multiVersionFields, fa, f, i, endian, mode);
             } else {
                 Field[] fas = f.getDeclaredAnnotation(Fs.class).value();
                 for (int j = 0; j < fas.length; j++)
-                    fillField(root, multiVersionFields, fas[j], f, i);
+                    fillField(nested, multiVersionFields, fas[j], f, i, endian, mode);
             }
         }
         return multiVersionFields;
     }
 
-    private static void fillField(Map<String, ArrayMap<RuntimeSchema>> root, Map<Integer, Set<BasicField>> multiVersionFields, Field field, java.lang.reflect.Field f, int position) {
-        BasicField basicField = SchemaRegistry.get(field, f);
+    private static void fillField(Function<Class, ArrayMap<RuntimeSchema>> nested, Map<Integer, Set<BasicField>> multiVersionFields, Field field, java.lang.reflect.Field f, int position, Endian endian, AccessMode mode) {
+        BasicField basicField = SchemaRegistry.get(field, f, endian);
         int[] versions = getVersions(field, ALL);
         if (basicField != null) {
             for (int ver : versions) {
-                multiVersionFields.get(ver).add(basicField.init(field, f, position));
+                multiVersionFields.get(ver).add(basicField.init(field, f, position, mode));
             }
         } else {
-            ArrayMap<RuntimeSchema> schemaMap = getRuntimeSchema(root, ClassUtils.getGenericType(f));
+            ArrayMap<RuntimeSchema> schemaMap = nested.apply(ClassUtils.getGenericType(f));
             if (versions == ALL)
                 versions = schemaMap.keys();
             for (int ver : versions) {
                 Schema schema = schemaMap.getOrDefault(ver);
-                basicField = SchemaRegistry.get(field, f, schema);
-                multiVersionFields.get(ver).add(basicField.init(field, f, position));
+                basicField = SchemaRegistry.get(field, f, schema, endian);
+                multiVersionFields.get(ver).add(basicField.init(field, f, position, mode));
             }
         }
     }
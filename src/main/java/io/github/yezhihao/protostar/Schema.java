@@ -2,6 +2,7 @@ package io.github.yezhihao.protostar;
 
 import io.github.yezhihao.protostar.util.Explain;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 
 /**
  * 消息结构
@@ -62,6 +63,22 @@ public interface Schema<T> {
         return 32;
     }
 
+    /** 写入value所需的精确字节数，默认通过试写计算，内置的Schema均已覆盖 */
+    default int sizeOf(T value) {
+        ByteBuf buf = ByteBufAllocator.DEFAULT.heapBuffer(length());
+        try {
+            writeTo(buf, value);
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    /** 与值无关的固定字节数，不固定时返回-1 */
+    default int fixedSize() {
+        return -1;
+    }
+
     default String desc() {
         return "";
     }
@@ -4,29 +4,40 @@ import io.github.yezhihao.protostar.annotation.Message;
 import io.github.yezhihao.protostar.schema.RuntimeSchema;
 import io.github.yezhihao.protostar.util.ArrayMap;
 import io.github.yezhihao.protostar.util.ClassUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * 多版本Schema管理器
+ * 多版本Schema管理器，线程安全，Schema由ProtostarUtil的全局缓存构建，每个类最多构建一次
  * @author yezhihao
  * https://gitee.com/yezhihao/jt808-server
  */
 public class SchemaManager {
 
+    /** 消息ID不超过该值时按数组下标查找(JT808消息ID为WORD) */
+    private static final int DENSE_LIMIT = 0xFFFF;
+
+    /** 所有注册的消息ID，下标表之外的ID只能从这里查找 */
     private final Map<Integer, ArrayMap<RuntimeSchema>> typeIdMapping;
 
-    private final Map<String, ArrayMap<RuntimeSchema>> typeClassMapping;
+    /** 以消息ID为下标，覆盖整个WORD范围(约256KB)，注册时只写入对应的位置，读取不加锁、不装箱 */
+    private final AtomicReferenceArray<ArrayMap<RuntimeSchema>> typeIdTable = new AtomicReferenceArray<>(DENSE_LIMIT + 1);
+
+    /** encode使用的分配器，默认为池化的直接内存 */
+    private ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
 
     public SchemaManager() {
         this(128);
     }
 
     public SchemaManager(int initialCapacity) {
-        this.typeIdMapping = new HashMap<>(initialCapacity);
-        this.typeClassMapping = new HashMap<>(initialCapacity);
+        this.typeIdMapping = new ConcurrentHashMap<>(initialCapacity);
     }
 
     public SchemaManager(String... basePackages) {
@@ -41,35 +52,90 @@ public class SchemaManager {
                 Message message = type.getAnnotation(Message.class);
                 if (message != null) {
                     int[] values = message.value();
-                    for (Integer typeId : values)
-                        loadRuntimeSchema(typeId, type);
+                    for (int typeId : values)
+                        register(typeId, type);
                 }
             }
         }
     }
 
+    public void loadRuntimeSchema(int typeId, Class typeClass) {
+        register(typeId, typeClass);
+    }
+
     public void loadRuntimeSchema(Integer typeId, Class typeClass) {
-        ArrayMap<RuntimeSchema> schemaMap = ProtostarUtil.getRuntimeSchema(typeClassMapping, typeClass);
-        if (schemaMap != null) typeIdMapping.put(typeId, schemaMap);
+        loadRuntimeSchema(typeId.intValue(), typeClass);
     }
 
+    private void register(int typeId, Class typeClass) {
+        ArrayMap<RuntimeSchema> schemaMap = getRuntimeSchema(typeClass);
+        if (schemaMap == null)
+            return;
+        typeIdMapping.put(typeId, schemaMap);
+        if (typeId >= 0 && typeId <= DENSE_LIMIT)
+            typeIdTable.set(typeId, schemaMap);
+    }
+
+    /** 按类型查找只需一次ClassValue.get，同一个类在各SchemaManager之间共用Schema */
     public <T> RuntimeSchema<T> getRuntimeSchema(Class<T> typeClass, int version) {
-        ArrayMap<RuntimeSchema> schemaMap = ProtostarUtil.getRuntimeSchema(typeClassMapping, typeClass);
-        if (schemaMap == null) return null;
-        return schemaMap.getOrDefault(version);
+        return ProtostarUtil.getRuntimeSchema(typeClass, version);
     }
 
     public ArrayMap<RuntimeSchema> getRuntimeSchema(Class typeClass) {
-        return ProtostarUtil.getRuntimeSchema(typeClassMapping, typeClass);
+        return ProtostarUtil.getRuntimeSchema(typeClass);
     }
 
-    public RuntimeSchema getRuntimeSchema(Integer typeId, int version) {
-        ArrayMap<RuntimeSchema> schemaMap = typeIdMapping.get(typeId);
+    public RuntimeSchema getRuntimeSchema(int typeId, int version) {
+        ArrayMap<RuntimeSchema> schemaMap = getRuntimeSchema(typeId);
         if (schemaMap == null) return null;
         return schemaMap.getOrDefault(version);
     }
 
-    public ArrayMap<RuntimeSchema> getRuntimeSchema(Integer typeId) {
+    public ArrayMap<RuntimeSchema> getRuntimeSchema(int typeId) {
+        if (typeId >= 0 && typeId <= DENSE_LIMIT)
+            return typeIdTable.get(typeId);
         return typeIdMapping.get(typeId);
     }
-}
\ No newline at end of file
+
+    public RuntimeSchema getRuntimeSchema(Integer typeId, int version) {
+        if (typeId == null) return null;
+        return getRuntimeSchema(typeId.intValue(), version);
+    }
+
+    public ArrayMap<RuntimeSchema> getRuntimeSchema(Integer typeId) {
+        if (typeId == null) return null;
+        return getRuntimeSchema(typeId.intValue());
+    }
+
+    /** 按消息ID与版本解码，未注册的消息ID返回null */
+    public <T> T decode(int typeId, int version, ByteBuf input) {
+        RuntimeSchema<T> schema = getRuntimeSchema(typeId, version);
+        if (schema == null)
+            return null;
+        return schema.readFrom(input);
+    }
+
+    public ByteBufAllocator getAllocator() {
+        return allocator;
+    }
+
+    public void setAllocator(ByteBufAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    /** 按消息类型与版本编码，缓冲区由allocator分配，调用方负责release */
+    public ByteBuf encode(Object message, int version) {
+        RuntimeSchema schema = getRuntimeSchema(message.getClass(), version);
+        if (schema == null)
+            throw new IllegalArgumentException("未注册的消息类型:" + message.getClass().getName());
+        return schema.encode(message, allocator);
+    }
+
+    /** 按消息类型与版本编码到CompositeByteBuf，大块数据字段不复制，调用方负责release */
+    public CompositeByteBuf encodeComposite(Object message, int version) {
+        RuntimeSchema schema = getRuntimeSchema(message.getClass(), version);
+        if (schema == null)
+            throw new IllegalArgumentException("未注册的消息类型:" + message.getClass().getName());
+        return schema.encodeComposite(message, allocator);
+    }
+}
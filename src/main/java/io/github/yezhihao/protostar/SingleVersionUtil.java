@@ -5,8 +5,10 @@ import io.github.yezhihao.protostar.field.BasicField;
 import io.github.yezhihao.protostar.schema.RuntimeSchema;
 import io.github.yezhihao.protostar.schema.SchemaRegistry;
 import io.github.yezhihao.protostar.util.ClassUtils;
+import io.github.yezhihao.protostar.util.SchemaCache;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * 单版本Schema加载器
@@ -15,27 +17,39 @@ import java.util.*;
  */
 public abstract class SingleVersionUtil {
 
-    private static final Map<String, RuntimeSchema> CACHE = new WeakHashMap<>();
+    /** 全局缓存，线程安全，嵌套类型同样从该缓存获取，使用启动参数指定的AccessMode */
+    private static final SchemaCache<RuntimeSchema> CACHE = new SchemaCache<>(typeClass -> build(typeClass, SingleVersionUtil::getRuntimeSchema, AccessMode.get()));
 
     public static <T> RuntimeSchema<T> getRuntimeSchema(Class<T> typeClass) {
-        return getRuntimeSchema(CACHE, typeClass);
+        return CACHE.get(typeClass);
     }
 
+    /** 构建到调用方提供的root中，以类名为key，与全局缓存隔离，root非线程安全 */
     public static <T> RuntimeSchema<T> getRuntimeSchema(Map<String, RuntimeSchema> root, Class<T> typeClass) {
+        return getRuntimeSchema(root, typeClass, AccessMode.get());
+    }
+
+    /** 同上，root中的Schema(包括嵌套类型)使用指定的AccessMode */
+    public static <T> RuntimeSchema<T> getRuntimeSchema(Map<String, RuntimeSchema> root, Class<T> typeClass, AccessMode mode) {
         RuntimeSchema<T> schema = root.get(typeClass.getName());
         //不支持循环引用
         if (schema != null) return schema;
 
+        schema = build(typeClass, type -> getRuntimeSchema(root, type, mode), mode);
+        if (schema != null)
+            root.put(typeClass.getName(), schema);
+        return schema;
+    }
+
+    private static RuntimeSchema build(Class typeClass, Function<Class, RuntimeSchema> nested, AccessMode mode) {
         List<java.lang.reflect.Field> fs = findFields(typeClass);
         if (fs.isEmpty()) return null;
 
-        List<BasicField> fieldList = findFields(root, fs);
+        List<BasicField> fieldList = findFields(nested, fs, SchemaRegistry.getEndian(typeClass), mode);
         BasicField[] fields = fieldList.toArray(new BasicField[fieldList.size()]);
         Arrays.sort(fields);
 
-        schema = new RuntimeSchema(typeClass, 0, fields);
-        root.put(typeClass.getName(), schema);
-        return schema;
+        return new RuntimeSchema(typeClass, 0, fields, mode);
     }
 
     private static List<java.lang.reflect.Field> findFields(Class typeClass) {
@@ -50,7 +64,7 @@ public abstract class SingleVersionUtil {
         return result;
     }
 
-    private static List<BasicField> findFields(Map<String, RuntimeSchema> root, List<java.lang.reflect.Field> fs) {
+    private static List<BasicField> findFields(Function<Class, RuntimeSchema> nested, List<java.lang.reflect.Field> fs, Endian endian, AccessMode mode) {
         int size = fs.size();
         List<BasicField> fields = new ArrayList<>(size);
 
@@ -59,20 +73,20 @@ public abstract class SingleVersionUtil {
             Field field = f.getDeclaredAnnotation(Field.class);
             if (field != null) {
                 f.setAccessible(true);
-                fillField(root, fields, field, f, i);
+                fillField(nested, fields, field, f, i, endian, mode);
             }
         }
         return fields;
     }
 
-    private static void fillField(Map<String, RuntimeSchema> root, List<BasicField> fields, Field field, java.lang.reflect.Field f, int position) {
-        BasicField basicField = SchemaRegistry.get(field, f);
+    private static void fillField(Function<Class, RuntimeSchema> nested, List<BasicField> fields, Field field, java.lang.reflect.Field f, int position, Endian endian, AccessMode mode) {
+        BasicField basicField = SchemaRegistry.get(field, f, endian);
         if (basicField != null) {
-            fields.add(basicField.init(field, f, position));
+            fields.add(basicField.init(field, f, position, mode));
         } else {
-            RuntimeSchema schema = getRuntimeSchema(root, ClassUtils.getGenericType(f));
-            basicField = SchemaRegistry.get(field, f, schema);
-            fields.add(basicField.init(field, f, position));
+            RuntimeSchema schema = nested.apply(ClassUtils.getGenericType(f));
+            basicField = SchemaRegistry.get(field, f, schema, endian);
+            fields.add(basicField.init(field, f, position, mode));
         }
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package io.github.yezhihao.protostar.annotation;
 
+import io.github.yezhihao.protostar.Endian;
 import io.github.yezhihao.protostar.Schema;
 
 import java.lang.annotation.*;
@@ -28,9 +29,18 @@ public @interface Field {
     /** 该字段的前置数量单位 1.BYTE 2.WORD 3.MEDIUM 4.DWORD */
     int totalUnit() default -1;
 
-    /** 字符集 BCD、HEX、GBK、UTF-8等 */
+    /** 字符集 BCD、HEX、GBK、UTF-8等，数值与数组的LE等同于endian = LITTLE */
     String charset() default "GBK";
 
+    /** 字节序，作用于数值、数组及该字段的前置长度、数量，默认跟随@Message */
+    Endian endian() default Endian.DEFAULT;
+
+    /** 字符串解码缓存容量，用于大量重复出现的值(如终端手机号)，0不缓存 */
+    int cacheSize() default 0;
+
+    /** ByteBuf字段解码为retainedSlice，不复制也不依赖输入ByteBuf的生命周期，使用完毕后须调用RuntimeSchema.release */
+    boolean retained() default false;
+
     /** 描述 */
     String desc() default "";
 
@@ -1,5 +1,7 @@
 package io.github.yezhihao.protostar.annotation;
 
+import io.github.yezhihao.protostar.Endian;
+
 import java.lang.annotation.*;
 
 /**
@@ -16,4 +18,7 @@ public @interface Message {
 
     String desc() default "";
 
+    /** 字段默认的字节序，只作用于本类声明或合并的字段，嵌套的类型按其自身的@Message */
+    Endian endian() default Endian.BIG;
+
 }
\ No newline at end of file
@@ -1,10 +1,23 @@
 package io.github.yezhihao.protostar.field;
 
+import io.github.yezhihao.protostar.AccessMode;
 import io.github.yezhihao.protostar.Schema;
 import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
 import io.github.yezhihao.protostar.schema.SchemaRegistry;
 import io.github.yezhihao.protostar.util.Explain;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * 消息结构
@@ -14,51 +27,389 @@ import io.netty.buffer.ByteBuf;
 public abstract class BasicField<T> implements Schema<T>, Comparable<BasicField> {
 
     protected java.lang.reflect.Field f;
+    /**
+     * 读写字段的MethodHandle，AccessMode为REFLECT或解析失败时为null，final字段没有setter
+     * 初始化时一次性适配为(Object)T、(Object,T)void，T为基本类型或Object，调用时以相同类型invokeExact
+     */
+    protected MethodHandle getter;
+    protected MethodHandle setter;
+    /** 基本类型字段的getter/setter不是Object类型，getValue/setValue使用反射，读写由NumberPSchema完成 */
+    protected boolean primitive;
     protected Field field;
     protected int index;
     protected int length;
     protected String desc;
+    /** 基本类型为0或false，其他为null */
+    protected Object defaultValue;
+    /** 容器字段reset时回收的空容器，每个线程缓存一个，仅容器字段创建 */
+    protected FastThreadLocal<Object> spare;
+    /** 解码结果为retainedSlice，由release释放 */
+    protected boolean retained;
 
     public void readAndSet(ByteBuf input, Object obj) throws Exception {
         T value = readFrom(input);
-        f.set(obj, value);
+        setValue(obj, value);
     }
 
     public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-        T value = (T) f.get(obj);
+        T value = (T) getValue(obj);
         writeTo(output, value);
     }
 
+    public int getAndSizeOf(Object obj) throws Exception {
+        T value = (T) getValue(obj);
+        return sizeOf(value);
+    }
+
+    /** 跳过该字段，长度可预知时不解码，返回false表示无法跳过(未读取任何字节) */
+    public boolean skip(ByteBuf input) {
+        int size = fixedSize();
+        if (size < 0)
+            return false;
+        input.skipBytes(Math.min(size, input.readableBytes()));
+        return true;
+    }
+
     public void readAndSet(ByteBuf input, Object obj, Explain explain) throws Exception {
         T value = readFrom(input, explain);
-        f.set(obj, value);
+        setValue(obj, value);
     }
 
     public void getAndWrite(ByteBuf output, Object obj, Explain explain) throws Exception {
-        T value = (T) f.get(obj);
+        T value = (T) getValue(obj);
         writeTo(output, value, explain);
     }
 
+    /** 重置为默认值，用于对象复用 */
+    public void reset(Object obj) throws Exception {
+        setValue(obj, defaultValue);
+    }
+
+    public boolean isRetained() {
+        return retained;
+    }
+
+    /**
+     * 释放retained字段持有的引用，字段置为null
+     * record的字段不可修改，解码时已包装为单独计数的ByteBuf，引用计数已为0时跳过，重复release不影响原ByteBuf
+     */
+    public void release(Object obj) throws Exception {
+        Object value = getValue(obj);
+        if (value == null)
+            return;
+        if (f.getDeclaringClass().isRecord()) {
+            if (value instanceof ReferenceCounted && ((ReferenceCounted) value).refCnt() > 0)
+                ((ReferenceCounted) value).release();
+            return;
+        }
+        setValue(obj, null);
+        ReferenceCountUtil.release(value);
+    }
+
+    /** 字段置为null，解码时创建的容器(type)回收其中的嵌套消息并清空后留给当前线程下次readPooled使用 */
+    protected void resetContainer(Object obj, Class<?> type) throws Exception {
+        Object value = getValue(obj);
+        setValue(obj, null);
+        if (value != null && value.getClass() == type) {
+            recycleElements(value);
+            if (value instanceof Collection)
+                ((Collection<?>) value).clear();
+            else
+                ((Map<?, ?>) value).clear();
+            spare.set(value);
+        }
+    }
+
+    /** 容器清空前回收其中的嵌套消息，由集合域与字典域重写 */
+    protected void recycleElements(Object container) {
+    }
+
+    /** schema为RuntimeSchema时将element回收到其对象池 */
+    protected static void recycle(Schema schema, Object element) {
+        if (schema instanceof RuntimeSchema)
+            ((RuntimeSchema) schema).recycle(element);
+    }
+
+    /** readPooled解码时嵌套消息从其对象池获取，否则与schema.readFrom相同 */
+    protected static <E> E readElement(Schema<E> schema, ByteBuf input, boolean pooled) {
+        if (pooled && schema instanceof RuntimeSchema)
+            return ((RuntimeSchema<E>) schema).readPooled(input);
+        return schema.readFrom(input);
+    }
+
+    protected static <E> E readElement(Schema<E> schema, ByteBuf input, int length, boolean pooled) {
+        if (pooled && schema instanceof RuntimeSchema)
+            return ((RuntimeSchema<E>) schema).readPooled(input, length);
+        return schema.readFrom(input, length);
+    }
+
+    /** 取出当前线程回收的空容器，没有时返回null，只在readPooled解码时调用 */
+    protected Object takeSpare() {
+        Object value = spare.get();
+        if (value != null)
+            spare.set(null);
+        return value;
+    }
+
+    protected Object getValue(Object obj) throws Exception {
+        if (getter == null || primitive)
+            return f.get(obj);
+        try {
+            return (Object) getter.invokeExact(obj);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected void setValue(Object obj, Object value) throws Exception {
+        if (setter == null || primitive) {
+            f.set(obj, value);
+            return;
+        }
+        try {
+            setter.invokeExact(obj, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected boolean getBoolean(Object obj) throws Exception {
+        if (getter == null)
+            return f.getBoolean(obj);
+        try {
+            return (boolean) getter.invokeExact(obj);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected void setBoolean(Object obj, boolean value) throws Exception {
+        if (setter == null) {
+            f.setBoolean(obj, value);
+            return;
+        }
+        try {
+            setter.invokeExact(obj, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected char getChar(Object obj) throws Exception {
+        if (getter == null)
+            return f.getChar(obj);
+        try {
+            return (char) getter.invokeExact(obj);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected void setChar(Object obj, char value) throws Exception {
+        if (setter == null) {
+            f.setChar(obj, value);
+            return;
+        }
+        try {
+            setter.invokeExact(obj, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected byte getByte(Object obj) throws Exception {
+        if (getter == null)
+            return f.getByte(obj);
+        try {
+            return (byte) getter.invokeExact(obj);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected void setByte(Object obj, byte value) throws Exception {
+        if (setter == null) {
+            f.setByte(obj, value);
+            return;
+        }
+        try {
+            setter.invokeExact(obj, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected short getShort(Object obj) throws Exception {
+        if (getter == null)
+            return f.getShort(obj);
+        try {
+            return (short) getter.invokeExact(obj);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected void setShort(Object obj, short value) throws Exception {
+        if (setter == null) {
+            f.setShort(obj, value);
+            return;
+        }
+        try {
+            setter.invokeExact(obj, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected int getInt(Object obj) throws Exception {
+        if (getter == null)
+            return f.getInt(obj);
+        try {
+            return (int) getter.invokeExact(obj);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected void setInt(Object obj, int value) throws Exception {
+        if (setter == null) {
+            f.setInt(obj, value);
+            return;
+        }
+        try {
+            setter.invokeExact(obj, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected long getLong(Object obj) throws Exception {
+        if (getter == null)
+            return f.getLong(obj);
+        try {
+            return (long) getter.invokeExact(obj);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected void setLong(Object obj, long value) throws Exception {
+        if (setter == null) {
+            f.setLong(obj, value);
+            return;
+        }
+        try {
+            setter.invokeExact(obj, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected float getFloat(Object obj) throws Exception {
+        if (getter == null)
+            return f.getFloat(obj);
+        try {
+            return (float) getter.invokeExact(obj);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected void setFloat(Object obj, float value) throws Exception {
+        if (setter == null) {
+            f.setFloat(obj, value);
+            return;
+        }
+        try {
+            setter.invokeExact(obj, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected double getDouble(Object obj) throws Exception {
+        if (getter == null)
+            return f.getDouble(obj);
+        try {
+            return (double) getter.invokeExact(obj);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    protected void setDouble(Object obj, double value) throws Exception {
+        if (setter == null) {
+            f.setDouble(obj, value);
+            return;
+        }
+        try {
+            setter.invokeExact(obj, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /** MethodHandle只会抛出字段访问本身的异常，原样抛出 */
+    private static Exception rethrow(Throwable e) {
+        if (e instanceof Error)
+            throw (Error) e;
+        if (e instanceof Exception)
+            return (Exception) e;
+        return new RuntimeException(e);
+    }
+
     public BasicField init(Field field, java.lang.reflect.Field f, int position) {
+        return init(field, f, position, AccessMode.get());
+    }
+
+    /** mode为REFLECT时不解析MethodHandle */
+    public BasicField init(Field field, java.lang.reflect.Field f, int position, AccessMode mode) {
         if (this.f == null && this.field == null) {
             this.f = f;
             this.field = field;
             length = field.length() > 0 ? field.length() : SchemaRegistry.getLength(f.getType());
             length = length > 0 ? length : 16;
             desc = field.desc();
+            retained = field.retained() && f.getType() == ByteBuf.class;
             if (desc.isEmpty())
                 desc = f.getName();
             index = field.index();
             if (index == 0)
                 index = position;
+            primitive = f.getType().isPrimitive();
+            if (primitive)
+                defaultValue = Array.get(Array.newInstance(f.getType(), 1), 0);
+            if (mode != AccessMode.REFLECT)
+                findHandles(f);
         }
         return this;
     }
 
+    /** final字段(含record)只解析getter，赋值仍使用反射 */
+    private void findHandles(java.lang.reflect.Field f) {
+        Class<?> type = primitive ? f.getType() : Object.class;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(f.getDeclaringClass(), MethodHandles.lookup());
+            MethodHandle getter = lookup.unreflectGetter(f).asType(MethodType.methodType(type, Object.class));
+            MethodHandle setter = null;
+            if (!Modifier.isFinal(f.getModifiers()))
+                setter = lookup.unreflectSetter(f).asType(MethodType.methodType(void.class, Object.class, type));
+            this.getter = getter;
+            this.setter = setter;
+        } catch (Exception e) {
+            this.getter = null;
+            this.setter = null;
+        }
+    }
+
     public String fieldName() {
         return f.getName();
     }
 
+    public java.lang.reflect.Field reflectField() {
+        return f;
+    }
+
     public String desc() {
         return desc;
     }
@@ -1,8 +1,10 @@
 package io.github.yezhihao.protostar.field;
 
 import io.github.yezhihao.protostar.Schema;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
 import io.github.yezhihao.protostar.util.Explain;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -18,18 +20,42 @@ public class CollectionField<T> extends BasicField<Collection<T>> {
 
     public CollectionField(Schema<T> schema) {
         this.schema = schema;
+        this.spare = new FastThreadLocal<>();
     }
 
     @Override
     public Collection<T> readFrom(ByteBuf input) {
-        Collection<T> list = new ArrayList<>();
+        return readFrom(input, new ArrayList<>(), false);
+    }
+
+    private Collection<T> readFrom(ByteBuf input, Collection<T> list, boolean pooled) {
         T t;
-        while (input.isReadable() && (t = schema.readFrom(input)) != null) {
+        while (input.isReadable() && (t = readElement(schema, input, pooled)) != null) {
             list.add(t);
         }
         return list;
     }
 
+    @Override
+    public void readAndSet(ByteBuf input, Object obj) throws Exception {
+        boolean pooled = RuntimeSchema.pooling();
+        Collection<T> list = pooled ? (Collection<T>) takeSpare() : null;
+        if (list == null)
+            list = new ArrayList<>();
+        setValue(obj, readFrom(input, list, pooled));
+    }
+
+    @Override
+    public void reset(Object obj) throws Exception {
+        resetContainer(obj, ArrayList.class);
+    }
+
+    @Override
+    protected void recycleElements(Object container) {
+        for (Object t : (Collection<?>) container)
+            recycle(schema, t);
+    }
+
     @Override
     public void writeTo(ByteBuf output, Collection<T> list) {
         if (list != null) {
@@ -57,4 +83,15 @@ public class CollectionField<T> extends BasicField<Collection<T>> {
             }
         }
     }
+
+    @Override
+    public int sizeOf(Collection<T> list) {
+        int size = 0;
+        if (list != null) {
+            for (T t : list) {
+                size += schema.sizeOf(t);
+            }
+        }
+        return size;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package io.github.yezhihao.protostar.field;
 
+import io.github.yezhihao.protostar.AccessMode;
 import io.github.yezhihao.protostar.annotation.Field;
 import io.github.yezhihao.protostar.util.Explain;
 import io.netty.buffer.ByteBuf;
@@ -25,9 +26,9 @@ public class ExpressionLengthField<T> extends BasicField<T> {
     }
 
     @Override
-    public BasicField init(Field field, java.lang.reflect.Field f, int position) {
-        BasicField init = super.init(field, f, position);
-        schema.init(field, f, position);
+    public BasicField init(Field field, java.lang.reflect.Field f, int position, AccessMode mode) {
+        BasicField init = super.init(field, f, position, mode);
+        schema.init(field, f, position, mode);
         return init;
     }
 
@@ -57,7 +58,7 @@ public class ExpressionLengthField<T> extends BasicField<T> {
         if (length <= 0)
             return;
         T value = schema.readFrom(input, length);
-        f.set(obj, value);
+        setValue(obj, value);
     }
 
     @Override
@@ -65,17 +66,30 @@ public class ExpressionLengthField<T> extends BasicField<T> {
         Integer length = expression.getValue(obj, Integer.class);
         if (length <= 0)
             return;
-        T value = (T) f.get(obj);
+        T value = (T) getValue(obj);
         schema.writeTo(output, length, value);
     }
 
+    @Override
+    public int sizeOf(T value) {
+        return schema.sizeOf(value);
+    }
+
+    @Override
+    public int getAndSizeOf(Object obj) throws Exception {
+        Integer length = expression.getValue(obj, Integer.class);
+        if (length <= 0)
+            return 0;
+        return length;
+    }
+
     @Override
     public void readAndSet(ByteBuf input, Object obj, Explain explain) throws Exception {
         Integer length = expression.getValue(obj, Integer.class);
         if (length <= 0)
             return;
         T value = schema.readFrom(input, length, explain);
-        f.set(obj, value);
+        setValue(obj, value);
     }
 
     @Override
@@ -83,7 +97,7 @@ public class ExpressionLengthField<T> extends BasicField<T> {
         Integer length = expression.getValue(obj, Integer.class);
         if (length <= 0)
             return;
-        T value = (T) f.get(obj);
+        T value = (T) getValue(obj);
         schema.writeTo(output, length, value, explain);
     }
 }
\ No newline at end of file
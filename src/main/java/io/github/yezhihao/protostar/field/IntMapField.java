@@ -0,0 +1,176 @@
+package io.github.yezhihao.protostar.field;
+
+import io.github.yezhihao.protostar.schema.MapSchema;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.github.yezhihao.protostar.util.Explain;
+import io.github.yezhihao.protostar.util.IntMap;
+import io.github.yezhihao.protostar.util.IntTool;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 字典域，字段类型为IntMap时使用，key与整数值不装箱
+ * totalUnit大于0时先读取键值对数量，否则只能位于消息末尾
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public class IntMapField extends BasicField<IntMap> {
+
+    private static final Logger log = LoggerFactory.getLogger(IntMapField.class.getSimpleName());
+
+    private final MapSchema mapSchema;
+    private final int lengthUnit;
+    private final IntTool valueIntTool;
+    private final int totalUnit;
+    private final IntTool totalIntTool;
+
+    public IntMapField(MapSchema mapSchema, int totalUnit, boolean littleEndian) {
+        this.mapSchema = mapSchema;
+        this.lengthUnit = mapSchema.lengthUnit;
+        this.valueIntTool = mapSchema.intTool;
+        this.totalUnit = totalUnit;
+        this.totalIntTool = totalUnit > 0 ? IntTool.getInstance(totalUnit, littleEndian) : null;
+        this.spare = new FastThreadLocal<>();
+    }
+
+    @Override
+    public IntMap readFrom(ByteBuf input) {
+        int total = Integer.MAX_VALUE;
+        if (totalIntTool != null) {
+            total = totalIntTool.read(input);
+            if (total <= 0)
+                return null;
+        }
+        return readFrom(input, total, new IntMap(Math.min(total, 16)), false);
+    }
+
+    @Override
+    public void readAndSet(ByteBuf input, Object obj) throws Exception {
+        int total = Integer.MAX_VALUE;
+        if (totalIntTool != null) {
+            total = totalIntTool.read(input);
+            if (total <= 0) {
+                setValue(obj, null);
+                return;
+            }
+        }
+        boolean pooled = RuntimeSchema.pooling();
+        IntMap map = pooled ? (IntMap) takeSpare() : null;
+        if (map == null)
+            map = new IntMap(Math.min(total, 16));
+        setValue(obj, readFrom(input, total, map, pooled));
+    }
+
+    private IntMap readFrom(ByteBuf input, int total, IntMap map, boolean pooled) {
+        int key = 0;
+        int length = 0;
+        try {
+            for (int i = 0; i < total && input.isReadable(); i++) {
+                key = mapSchema.readKey(input);
+
+                length = valueIntTool.read(input);
+                if (length <= 0)
+                    continue;
+
+                int writerIndex = input.writerIndex();
+                int readerIndex = input.readerIndex() + length;
+                if (writerIndex > readerIndex) {
+                    input.writerIndex(readerIndex);
+                    mapSchema.readValue(input, key, map, pooled);
+                    input.setIndex(readerIndex, writerIndex);
+                } else {
+                    mapSchema.readValue(input, key, map, pooled);
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("解析出错:ID[{}], LENGTH[{}], {}", key, length, e.getMessage());
+        }
+        return map;
+    }
+
+    @Override
+    public IntMap readFrom(ByteBuf input, Explain explain) {
+        int total = Integer.MAX_VALUE;
+        if (totalIntTool != null) {
+            total = totalIntTool.read(input);
+            explain.lengthField(input.readerIndex() - totalUnit, desc + "数量", total, totalUnit);
+            if (total <= 0)
+                return null;
+        }
+        IntMap map = new IntMap(Math.min(total, 16));
+
+        int key = 0;
+        int length = 0;
+        try {
+            for (int i = 0; i < total && input.isReadable(); i++) {
+                key = mapSchema.readKey(input, explain);
+                explain.setLastDesc(desc + "ID");
+
+                length = valueIntTool.read(input);
+                explain.lengthField(input.readerIndex() - lengthUnit, desc + "长度", length, lengthUnit);
+                if (length <= 0)
+                    continue;
+
+                int writerIndex = input.writerIndex();
+                int readerIndex = input.readerIndex() + length;
+                if (writerIndex > readerIndex) {
+                    input.writerIndex(readerIndex);
+                    mapSchema.readValue(input, key, map, explain);
+                    input.setIndex(readerIndex, writerIndex);
+                } else {
+                    mapSchema.readValue(input, key, map, explain);
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("解析出错:ID[{}], LENGTH[{}], {}", key, length, e.getMessage());
+        }
+        return map;
+    }
+
+    @Override
+    public void reset(Object obj) throws Exception {
+        IntMap map = (IntMap) getValue(obj);
+        setValue(obj, null);
+        if (map != null && map.getClass() == IntMap.class) {
+            for (int i = 0; i < map.size(); i++)
+                if (!map.isLongAt(i))
+                    recycle(mapSchema.valueSchema(map.keyAt(i)), map.valueAt(i));
+            map.clear();
+            spare.set(map);
+        }
+    }
+
+    @Override
+    public void writeTo(ByteBuf output, IntMap map) {
+        if (map == null)
+            return;
+        int size = map.size();
+        if (totalIntTool == null) {
+            for (int i = 0; i < size; i++)
+                mapSchema.writeEntry(output, map, i);
+            return;
+        }
+        int begin = output.writerIndex();
+        totalIntTool.write(output, 0);
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            if (mapSchema.writeEntry(output, map, i))
+                total++;
+        }
+        totalIntTool.set(output, begin, total);
+    }
+
+    @Override
+    public int sizeOf(IntMap map) {
+        if (map == null)
+            return 0;
+        int size = totalUnit > 0 ? totalUnit : 0;
+        for (int i = 0, n = map.size(); i < n; i++)
+            size += mapSchema.sizeOfEntry(map, i);
+        return size;
+    }
+}
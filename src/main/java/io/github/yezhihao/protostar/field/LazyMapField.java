@@ -0,0 +1,246 @@
+package io.github.yezhihao.protostar.field;
+
+import io.github.yezhihao.protostar.Schema;
+import io.github.yezhihao.protostar.schema.MapSchema;
+import io.github.yezhihao.protostar.util.Explain;
+import io.github.yezhihao.protostar.util.IntTool;
+import io.github.yezhihao.protostar.util.LazyMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 字典域，字段类型为LazyMap时使用，解码时只建立索引，值在首次get时解码
+ * totalUnit大于0时先读取键值对数量，否则只能位于消息末尾
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public class LazyMapField<K, V> extends BasicField<Map<K, V>> {
+
+    private static final Logger log = LoggerFactory.getLogger(LazyMapField.class.getSimpleName());
+
+    private final Schema<K> keySchema;
+    private final MapSchema mapSchema;
+    private final int lengthUnit;
+    /** 长度字段的字节数，lengthUnit不大于0时没有长度字段 */
+    private final int lengthSize;
+    private final IntTool valueIntTool;
+    private final int totalUnit;
+    private final IntTool totalIntTool;
+    /** key按基本类型int读取，存入索引时才装箱 */
+    private final boolean intKeys;
+
+    public LazyMapField(MapSchema mapSchema, int totalUnit, boolean littleEndian) {
+        this.keySchema = mapSchema.keySchema;
+        this.mapSchema = mapSchema;
+        this.lengthUnit = mapSchema.lengthUnit;
+        this.lengthSize = Math.max(mapSchema.lengthUnit, 0);
+        this.valueIntTool = mapSchema.intTool;
+        this.totalUnit = totalUnit;
+        this.totalIntTool = totalUnit > 0 ? IntTool.getInstance(totalUnit, littleEndian) : null;
+        this.intKeys = mapSchema.intKeys();
+    }
+
+    @Override
+    public LazyMap<K, V> readFrom(ByteBuf input) {
+        int total = Integer.MAX_VALUE;
+        if (totalIntTool != null) {
+            total = totalIntTool.read(input);
+            if (total <= 0)
+                return null;
+        }
+        return index(input, total);
+    }
+
+    /** 遍历一次键值对，记录各值相对起始位置的偏移量与长度，之后整段复制，LazyMap不持有input，无需随消息释放 */
+    private LazyMap<K, V> index(ByteBuf input, int total) {
+        int capacity = Math.min(total, 16);
+        Object[] keys = new Object[capacity];
+        int[] offsets = new int[capacity];
+        int[] lengths = new int[capacity];
+        int size = 0;
+
+        int begin = input.readerIndex();
+        K key = null;
+        int length = 0;
+        try {
+            for (int i = 0; i < total && input.isReadable(); i++) {
+                key = intKeys ? (K) Integer.valueOf(mapSchema.readKey(input)) : keySchema.readFrom(input);
+
+                length = valueIntTool.read(input);
+                if (length <= 0)
+                    continue;
+
+                int readable = input.readableBytes();
+                if (length > readable)
+                    length = readable;
+
+                //重复的key保留首次出现的位置与最后出现的值，与MapField解码为LinkedHashMap的结果一致
+                int slot = 0;
+                while (slot < size && !keys[slot].equals(key))
+                    slot++;
+                if (slot == size) {
+                    if (size == keys.length) {
+                        int newCapacity = size << 1;
+                        keys = Arrays.copyOf(keys, newCapacity);
+                        offsets = Arrays.copyOf(offsets, newCapacity);
+                        lengths = Arrays.copyOf(lengths, newCapacity);
+                    }
+                    keys[size++] = key;
+                }
+                offsets[slot] = input.readerIndex() - begin;
+                lengths[slot] = length;
+                input.skipBytes(length);
+            }
+        } catch (Exception e) {
+            log.warn("解析出错:ID[{}], LENGTH[{}], {}", key, length, e.getMessage());
+        }
+
+        byte[] data = new byte[input.readerIndex() - begin];
+        input.getBytes(begin, data);
+        return new LazyMap<>(mapSchema, data, keys, offsets, lengths, size);
+    }
+
+    @Override
+    public LazyMap<K, V> readFrom(ByteBuf input, Explain explain) {
+        int total = Integer.MAX_VALUE;
+        if (totalIntTool != null) {
+            total = totalIntTool.read(input);
+            explain.lengthField(input.readerIndex() - totalUnit, desc + "数量", total, totalUnit);
+            if (total <= 0)
+                return null;
+        }
+
+        //分析时逐个解码输出，之后回到起始位置建立索引
+        int begin = input.readerIndex();
+        K key = null;
+        int length = 0;
+        try {
+            for (int i = 0; i < total && input.isReadable(); i++) {
+                key = keySchema.readFrom(input, explain);
+                explain.setLastDesc(desc + "ID");
+
+                length = valueIntTool.read(input);
+                explain.lengthField(input.readerIndex() - lengthUnit, desc + "长度", length, lengthUnit);
+                if (length <= 0)
+                    continue;
+
+                int writerIndex = input.writerIndex();
+                int readerIndex = input.readerIndex() + length;
+                if (writerIndex > readerIndex) {
+                    input.writerIndex(readerIndex);
+                    readValue(key, input, explain);
+                    input.setIndex(readerIndex, writerIndex);
+                } else {
+                    readValue(key, input, explain);
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("解析出错:ID[{}], LENGTH[{}], {}", key, length, e.getMessage());
+        }
+        input.readerIndex(begin);
+        return index(input, total);
+    }
+
+    private void readValue(Object key, ByteBuf input, Explain explain) {
+        Schema schema = mapSchema.valueSchema(key);
+        if (schema != null) {
+            schema.readFrom(input, explain);
+        } else {
+            int begin = input.readerIndex();
+            byte[] bytes = new byte[input.readableBytes()];
+            input.readBytes(bytes);
+            explain.readField(begin, desc, ByteBufUtil.hexDump(bytes), input);
+        }
+    }
+
+    @Override
+    public void writeTo(ByteBuf output, Map<K, V> map) {
+        if (map == null)
+            return;
+        int begin = output.writerIndex();
+        if (totalIntTool != null)
+            totalIntTool.write(output, 0);
+
+        //未注册的键值对不写入，数量按实际写入的回填
+        int total = 0;
+        if (map instanceof LazyMap && ((LazyMap<K, V>) map).indexed()) {
+            LazyMap<K, V> lazy = (LazyMap<K, V>) map;
+            for (int i = 0, size = lazy.size(); i < size; i++) {
+                K key = lazy.keyAt(i);
+                if (lazy.isRaw(i)) {
+                    keySchema.writeTo(output, key);
+                    valueIntTool.write(output, lazy.rawLength(i));
+                    lazy.writeRaw(output, i);
+                    total++;
+                } else if (writeEntry(output, key, lazy.valueAt(i))) {
+                    total++;
+                }
+            }
+        } else {
+            for (Map.Entry<K, V> entry : map.entrySet())
+                if (writeEntry(output, entry.getKey(), entry.getValue()))
+                    total++;
+        }
+        if (totalIntTool != null)
+            totalIntTool.set(output, begin, total);
+    }
+
+    /** 未注册且不是byte[]的值返回false且不写入任何字节 */
+    private boolean writeEntry(ByteBuf output, K key, V value) {
+        Schema schema = mapSchema.valueSchema(key);
+        if (schema != null) {
+            keySchema.writeTo(output, key);
+            int begin = output.writerIndex();
+            valueIntTool.write(output, 0);
+            schema.writeTo(output, value);
+            int length = output.writerIndex() - begin - lengthUnit;
+            valueIntTool.set(output, begin, length);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            keySchema.writeTo(output, key);
+            valueIntTool.write(output, bytes.length);
+            output.writeBytes(bytes);
+        } else {
+            log.warn("未注册的信息:ID[{}], VALUE[{}]", key, value);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int sizeOf(Map<K, V> map) {
+        if (map == null)
+            return 0;
+
+        int size = totalUnit > 0 ? totalUnit : 0;
+        if (map instanceof LazyMap && ((LazyMap<K, V>) map).indexed()) {
+            LazyMap<K, V> lazy = (LazyMap<K, V>) map;
+            for (int i = 0, n = lazy.size(); i < n; i++) {
+                K key = lazy.keyAt(i);
+                if (lazy.isRaw(i))
+                    size += keySchema.sizeOf(key) + lengthSize + lazy.rawLength(i);
+                else
+                    size += sizeOf(key, lazy.valueAt(i));
+            }
+        } else {
+            for (Map.Entry<K, V> entry : map.entrySet())
+                size += sizeOf(entry.getKey(), entry.getValue());
+        }
+        return size;
+    }
+
+    private int sizeOf(K key, V value) {
+        Schema schema = mapSchema.valueSchema(key);
+        if (schema != null)
+            return keySchema.sizeOf(key) + lengthSize + schema.sizeOf(value);
+        if (value instanceof byte[])
+            return keySchema.sizeOf(key) + lengthSize + ((byte[]) value).length;
+        return 0;
+    }
+}
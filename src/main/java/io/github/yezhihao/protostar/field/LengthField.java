@@ -44,4 +44,20 @@ public class LengthField<T> extends BasicField<T> {
         if (value != null)
             schema.writeTo(output, length, value, explain);
     }
+
+    /** 剩余字节不足时与readFrom一样不读取，返回false */
+    @Override
+    public boolean skip(ByteBuf input) {
+        if (!input.isReadable(length))
+            return false;
+        input.skipBytes(length);
+        return true;
+    }
+
+    @Override
+    public int sizeOf(T value) {
+        if (value == null)
+            return 0;
+        return length;
+    }
 }
\ No newline at end of file
@@ -1,10 +1,12 @@
 package io.github.yezhihao.protostar.field;
 
 import io.github.yezhihao.protostar.Schema;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
 import io.github.yezhihao.protostar.util.Explain;
 import io.github.yezhihao.protostar.util.Info;
 import io.github.yezhihao.protostar.util.IntTool;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -20,20 +22,24 @@ public class LengthUnitCollectionField<T> extends BasicField<Collection<T>> {
     private final int lengthUnit;
     private final IntTool intTool;
 
-    public LengthUnitCollectionField(Schema<T> schema, int lengthUnit) {
+    public LengthUnitCollectionField(Schema<T> schema, int lengthUnit, boolean littleEndian) {
         this.schema = schema;
         this.lengthUnit = lengthUnit;
-        this.intTool = IntTool.getInstance(lengthUnit);
+        this.intTool = IntTool.getInstance(lengthUnit, littleEndian);
+        this.spare = new FastThreadLocal<>();
     }
 
     @Override
     public Collection<T> readFrom(ByteBuf input) {
-        Collection<T> list = new ArrayList<>();
+        return readFrom(input, new ArrayList<>(), false);
+    }
+
+    private Collection<T> readFrom(ByteBuf input, Collection<T> list, boolean pooled) {
         while (input.isReadable(lengthUnit)) {
             int length = intTool.read(input);
             if (!input.isReadable(length))
                 break;
-            T t = schema.readFrom(input, length);
+            T t = readElement(schema, input, length, pooled);
             if (t == null)
                 break;
             list.add(t);
@@ -41,6 +47,26 @@ public class LengthUnitCollectionField<T> extends BasicField<Collection<T>> {
         return list;
     }
 
+    @Override
+    public void readAndSet(ByteBuf input, Object obj) throws Exception {
+        boolean pooled = RuntimeSchema.pooling();
+        Collection<T> list = pooled ? (Collection<T>) takeSpare() : null;
+        if (list == null)
+            list = new ArrayList<>();
+        setValue(obj, readFrom(input, list, pooled));
+    }
+
+    @Override
+    public void reset(Object obj) throws Exception {
+        resetContainer(obj, ArrayList.class);
+    }
+
+    @Override
+    protected void recycleElements(Object container) {
+        for (Object t : (Collection<?>) container)
+            recycle(schema, t);
+    }
+
     @Override
     public void writeTo(ByteBuf output, Collection<T> list) {
         if (list != null) {
@@ -88,4 +114,16 @@ public class LengthUnitCollectionField<T> extends BasicField<Collection<T>> {
             }
         }
     }
+
+    @Override
+    public int sizeOf(Collection<T> list) {
+        int size = 0;
+        if (list != null) {
+            for (T t : list) {
+                if (t != null)
+                    size += lengthUnit + schema.sizeOf(t);
+            }
+        }
+        return size;
+    }
 }
\ No newline at end of file
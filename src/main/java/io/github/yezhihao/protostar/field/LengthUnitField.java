@@ -18,9 +18,13 @@ public class LengthUnitField<T> extends BasicField<T> {
     private final IntTool intTool;
 
     public LengthUnitField(Schema<T> schema, int lengthUnit) {
+        this(schema, lengthUnit, false);
+    }
+
+    public LengthUnitField(Schema<T> schema, int lengthUnit, boolean littleEndian) {
         this.schema = schema;
         this.lengthUnit = lengthUnit;
-        this.intTool = IntTool.getInstance(lengthUnit);
+        this.intTool = IntTool.getInstance(lengthUnit, littleEndian);
     }
 
     @Override
@@ -62,4 +66,18 @@ public class LengthUnitField<T> extends BasicField<T> {
             info.setLength(length, lengthUnit);
         }
     }
+
+    @Override
+    public boolean skip(ByteBuf input) {
+        int length = intTool.read(input);
+        input.skipBytes(Math.min(length, input.readableBytes()));
+        return true;
+    }
+
+    @Override
+    public int sizeOf(T value) {
+        if (value == null)
+            return lengthUnit;
+        return lengthUnit + schema.sizeOf(value);
+    }
 }
\ No newline at end of file
@@ -19,10 +19,10 @@ public class TotalArrayObjectField<T> extends BasicField<T[]> {
     private final IntTool intTool;
     private final Class<T> arrayClass;
 
-    public TotalArrayObjectField(Schema<T> schema, int totalUnit, Class<T> arrayClass) {
+    public TotalArrayObjectField(Schema<T> schema, int totalUnit, Class<T> arrayClass, boolean littleEndian) {
         this.schema = schema;
         this.totalUnit = totalUnit;
-        this.intTool = IntTool.getInstance(totalUnit);
+        this.intTool = IntTool.getInstance(totalUnit, littleEndian);
         this.arrayClass = arrayClass;
     }
 
@@ -82,4 +82,15 @@ public class TotalArrayObjectField<T> extends BasicField<T[]> {
             }
         }
     }
+
+    @Override
+    public int sizeOf(T[] value) {
+        int size = totalUnit;
+        if (value != null) {
+            for (int i = 0; i < value.length; i++) {
+                size += schema.sizeOf(value[i]);
+            }
+        }
+        return size;
+    }
 }
\ No newline at end of file
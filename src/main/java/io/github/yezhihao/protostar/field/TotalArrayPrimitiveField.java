@@ -20,11 +20,11 @@ public class TotalArrayPrimitiveField extends BasicField {
     private final int valueUnit;
     private final IntTool intTool;
 
-    public TotalArrayPrimitiveField(Schema schema, int totalUnit, Class arrayClass) {
+    public TotalArrayPrimitiveField(Schema schema, int totalUnit, Class arrayClass, boolean littleEndian) {
         this.schema = schema;
         this.totalUnit = totalUnit;
         this.valueUnit = SchemaRegistry.getLength(arrayClass);
-        this.intTool = IntTool.getInstance(totalUnit);
+        this.intTool = IntTool.getInstance(totalUnit, littleEndian);
     }
 
     @Override
@@ -69,4 +69,11 @@ public class TotalArrayPrimitiveField extends BasicField {
             schema.writeTo(output, value, explain);
         }
     }
+
+    @Override
+    public int sizeOf(Object value) {
+        if (value == null)
+            return totalUnit;
+        return totalUnit + schema.sizeOf(value);
+    }
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 package io.github.yezhihao.protostar.field;
 
 import io.github.yezhihao.protostar.Schema;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
 import io.github.yezhihao.protostar.util.Explain;
 import io.github.yezhihao.protostar.util.IntTool;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -20,10 +22,11 @@ public class TotalCollectionField<T> extends BasicField<Collection<T>> {
     private final int totalUnit;
     private final IntTool intTool;
 
-    public TotalCollectionField(Schema<T> schema, int totalUnit) {
+    public TotalCollectionField(Schema<T> schema, int totalUnit, boolean littleEndian) {
         this.schema = schema;
         this.totalUnit = totalUnit;
-        this.intTool = IntTool.getInstance(totalUnit);
+        this.intTool = IntTool.getInstance(totalUnit, littleEndian);
+        this.spare = new FastThreadLocal<>();
     }
 
     @Override
@@ -31,9 +34,12 @@ public class TotalCollectionField<T> extends BasicField<Collection<T>> {
         int total = intTool.read(input);
         if (total <= 0)
             return null;
-        List<T> list = new ArrayList<>(Math.min(total, 255));
+        return readFrom(input, total, new ArrayList<>(Math.min(total, 255)), false);
+    }
+
+    private Collection<T> readFrom(ByteBuf input, int total, Collection<T> list, boolean pooled) {
         for (int i = 0; i < total; i++) {
-            T t = schema.readFrom(input);
+            T t = readElement(schema, input, pooled);
             if (t == null)
                 break;
             list.add(t);
@@ -41,6 +47,31 @@ public class TotalCollectionField<T> extends BasicField<Collection<T>> {
         return list;
     }
 
+    @Override
+    public void readAndSet(ByteBuf input, Object obj) throws Exception {
+        int total = intTool.read(input);
+        if (total <= 0) {
+            setValue(obj, null);
+            return;
+        }
+        boolean pooled = RuntimeSchema.pooling();
+        Collection<T> list = pooled ? (Collection<T>) takeSpare() : null;
+        if (list == null)
+            list = new ArrayList<>(Math.min(total, 255));
+        setValue(obj, readFrom(input, total, list, pooled));
+    }
+
+    @Override
+    public void reset(Object obj) throws Exception {
+        resetContainer(obj, ArrayList.class);
+    }
+
+    @Override
+    protected void recycleElements(Object container) {
+        for (Object t : (Collection<?>) container)
+            recycle(schema, t);
+    }
+
     @Override
     public void writeTo(ByteBuf output, Collection<T> list) {
         if (list != null) {
@@ -83,4 +114,15 @@ public class TotalCollectionField<T> extends BasicField<Collection<T>> {
             intTool.write(output, 0);
         }
     }
+
+    @Override
+    public int sizeOf(Collection<T> list) {
+        int size = totalUnit;
+        if (list != null) {
+            for (T t : list) {
+                size += schema.sizeOf(t);
+            }
+        }
+        return size;
+    }
 }
\ No newline at end of file
@@ -2,11 +2,13 @@ package io.github.yezhihao.protostar.field;
 
 import io.github.yezhihao.protostar.Schema;
 import io.github.yezhihao.protostar.schema.MapSchema;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
 import io.github.yezhihao.protostar.util.Explain;
 import io.github.yezhihao.protostar.util.Info;
 import io.github.yezhihao.protostar.util.IntTool;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.util.concurrent.FastThreadLocal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,21 +26,25 @@ public class TotalMapField<K, V> extends BasicField<Map<K, V>> {
     private static final Logger log = LoggerFactory.getLogger(TotalMapField.class.getSimpleName());
 
     private final Schema<K> keySchema;
-    private final Map<K, Schema<V>> valueSchema;
+    private final MapSchema mapSchema;
     private final int lengthUnit;
     private final IntTool valueIntTool;
     private final int totalUnit;
     private final IntTool totalIntTool;
     private final boolean treeMap;
+    /** key按基本类型int读取，放入Map时才装箱 */
+    private final boolean intKeys;
 
-    public TotalMapField(MapSchema mapSchema, int totalUnit, Class typeClass) {
+    public TotalMapField(MapSchema mapSchema, int totalUnit, Class typeClass, boolean littleEndian) {
         this.keySchema = mapSchema.keySchema;
-        this.valueSchema = mapSchema.valueSchema;
+        this.mapSchema = mapSchema;
         this.lengthUnit = mapSchema.lengthUnit;
         this.valueIntTool = mapSchema.intTool;
         this.totalUnit = totalUnit;
-        this.totalIntTool = IntTool.getInstance(totalUnit);
+        this.totalIntTool = IntTool.getInstance(totalUnit, littleEndian);
         this.treeMap = !HashMap.class.isAssignableFrom(typeClass);
+        this.intKeys = mapSchema.intKeys();
+        this.spare = new FastThreadLocal<>();
     }
 
     @Override
@@ -50,12 +56,23 @@ public class TotalMapField<K, V> extends BasicField<Map<K, V>> {
         Map map;
         if (treeMap) map = new TreeMap<>();
         else map = new HashMap<>(total > 255 ? 255 : (int) (total / 0.75) + 1);
+        return readFrom(input, total, map, false);
+    }
 
+    private Map<K, V> readFrom(ByteBuf input, int total, Map map, boolean pooled) {
         K key = null;
+        int intKey = 0;
         int length = 0;
         try {
             for (int i = 0; i < total; i++) {
-                key = keySchema.readFrom(input);
+                Schema schema;
+                if (intKeys) {
+                    intKey = mapSchema.readKey(input);
+                    schema = mapSchema.valueSchema(intKey);
+                } else {
+                    key = keySchema.readFrom(input);
+                    schema = mapSchema.valueSchema(key);
+                }
 
                 length = valueIntTool.read(input);
                 if (length <= 0)
@@ -65,25 +82,55 @@ public class TotalMapField<K, V> extends BasicField<Map<K, V>> {
                 int readerIndex = input.readerIndex() + length;
                 if (writerIndex > readerIndex) {
                     input.writerIndex(readerIndex);
-                    Object value = readValue(key, input);
-                    map.put(key, value);
+                    Object value = readValue(schema, input, pooled);
+                    map.put(intKeys ? Integer.valueOf(intKey) : key, value);
                     input.setIndex(readerIndex, writerIndex);
                 } else {
-                    Object value = readValue(key, input);
-                    map.put(key, value);
+                    Object value = readValue(schema, input, pooled);
+                    map.put(intKeys ? Integer.valueOf(intKey) : key, value);
                     break;
                 }
             }
         } catch (Exception e) {
-            log.warn("解析出错:ID[{}], LENGTH[{}], {}", key, length, e.getMessage());
+            log.warn("解析出错:ID[{}], LENGTH[{}], {}", intKeys ? intKey : key, length, e.getMessage());
         }
         return map;
     }
 
+    @Override
+    public void readAndSet(ByteBuf input, Object obj) throws Exception {
+        int total = totalIntTool.read(input);
+        if (total <= 0) {
+            setValue(obj, null);
+            return;
+        }
+        boolean pooled = RuntimeSchema.pooling();
+        Map map = pooled ? (Map) takeSpare() : null;
+        if (map == null) {
+            if (treeMap) map = new TreeMap<>();
+            else map = new HashMap<>(total > 255 ? 255 : (int) (total / 0.75) + 1);
+        }
+        setValue(obj, readFrom(input, total, map, pooled));
+    }
+
+    @Override
+    public void reset(Object obj) throws Exception {
+        resetContainer(obj, treeMap ? TreeMap.class : HashMap.class);
+    }
+
+    @Override
+    protected void recycleElements(Object container) {
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) container).entrySet())
+            recycle(mapSchema.valueSchema(entry.getKey()), entry.getValue());
+    }
+
     public Object readValue(Object key, ByteBuf input) {
-        Schema schema = valueSchema.get(key);
+        return readValue(mapSchema.valueSchema(key), input, false);
+    }
+
+    private static Object readValue(Schema schema, ByteBuf input, boolean pooled) {
         if (schema != null) {
-            return schema.readFrom(input);
+            return readElement(schema, input, pooled);
         }
         byte[] bytes = new byte[input.readableBytes()];
         input.readBytes(bytes);
@@ -101,7 +148,7 @@ public class TotalMapField<K, V> extends BasicField<Map<K, V>> {
             keySchema.writeTo(output, key);
 
             V value = entry.getValue();
-            Schema<V> schema = valueSchema.get(key);
+            Schema<V> schema = mapSchema.valueSchema(key);
             if (schema != null) {
                 int begin = output.writerIndex();
                 valueIntTool.write(output, 0);
@@ -157,7 +204,7 @@ public class TotalMapField<K, V> extends BasicField<Map<K, V>> {
     }
 
     public Object readValue(Object key, ByteBuf input, Explain explain) {
-        Schema schema = valueSchema.get(key);
+        Schema schema = mapSchema.valueSchema(key);
         if (schema != null) {
             Object value = schema.readFrom(input, explain);
             return value;
@@ -181,7 +228,7 @@ public class TotalMapField<K, V> extends BasicField<Map<K, V>> {
             explain.setLastDesc(desc + "ID");
 
             V value = entry.getValue();
-            Schema<V> schema = valueSchema.get(key);
+            Schema<V> schema = mapSchema.valueSchema(key);
             if (schema != null) {
                 int begin = output.writerIndex();
                 Info info = explain.lengthField(begin, desc + "长度", 0, lengthUnit);
@@ -195,4 +242,24 @@ public class TotalMapField<K, V> extends BasicField<Map<K, V>> {
             }
         }
     }
+
+    @Override
+    public int sizeOf(Map<K, V> map) {
+        if (map == null)
+            return 0;
+
+        int size = totalUnit;
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            K key = entry.getKey();
+            size += keySchema.sizeOf(key);
+
+            Schema<V> schema = mapSchema.valueSchema(key);
+            if (schema != null) {
+                if (lengthUnit > 0)
+                    size += lengthUnit;
+                size += schema.sizeOf(entry.getValue());
+            }
+        }
+        return size;
+    }
 }
\ No newline at end of file
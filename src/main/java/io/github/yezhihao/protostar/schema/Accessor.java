@@ -0,0 +1,35 @@
+package io.github.yezhihao.protostar.schema;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 运行时生成的消息读写器，每个版本的RuntimeSchema对应一个实现
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public interface Accessor {
+
+    /** 按字段顺序读取并赋值，无可读字节时停止 */
+    void mergeFrom(ByteBuf input, Object message) throws Exception;
+
+    /** 按字段顺序取值并写入 */
+    void writeTo(ByteBuf output, Object message) throws Exception;
+
+    /** 所有字段重置为默认值 */
+    void reset(Object message) throws Exception;
+
+    /** 读写第index个字段失败，由RuntimeSchema转换为包含字段名的异常 */
+    class FieldException extends Exception {
+
+        private final int index;
+
+        public FieldException(int index, Throwable cause) {
+            super(null, cause, false, false);
+            this.index = index;
+        }
+
+        public int index() {
+            return index;
+        }
+    }
+}
@@ -0,0 +1,577 @@
+package io.github.yezhihao.protostar.schema;
+
+import io.github.yezhihao.protostar.field.BasicField;
+import io.github.yezhihao.protostar.util.ByteArrayTool;
+import io.netty.buffer.ByteBuf;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * 为RuntimeSchema生成隐藏类(Hidden Class)，以getfield/putfield和ByteBuf直接调用代替反射
+ * 隐藏类与消息类同属一个嵌套(Nest)，可直接访问其私有字段
+ * 无法直接访问的字段(父类私有字段、自定义读写逻辑等)调用BasicField.readAndSet/getAndWrite
+ * 连续的定长字段(基本类型、定长HEX/BCD)合并为一段，只检查一次长度，按预先计算的偏移量读写，最后一次性移动读写位置
+ * 堆内存ByteBuf直接读写底层数组，直接内存等其他ByteBuf调用getXxx(index)/setXxx(index)
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+final class AccessorGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessorGenerator.class.getSimpleName());
+
+    private static final String ACCESSOR = Type.getInternalName(Accessor.class);
+    private static final String FIELD_EXCEPTION = Type.getInternalName(Accessor.FieldException.class);
+    private static final String BASIC_FIELD = Type.getInternalName(BasicField.class);
+    private static final String BASIC_FIELD_DESC = Type.getDescriptor(BasicField.class);
+    private static final String BYTE_BUF = Type.getInternalName(ByteBuf.class);
+    private static final String BYTE_BUF_DESC = Type.getDescriptor(ByteBuf.class);
+    private static final String READ_FROM = "(" + BYTE_BUF_DESC + ")Ljava/lang/Object;";
+    private static final String WRITE_TO = "(" + BYTE_BUF_DESC + "Ljava/lang/Object;)V";
+    private static final String READ_AND_SET = "(" + BYTE_BUF_DESC + "Ljava/lang/Object;)V";
+    private static final String GET_AND_WRITE = "(" + BYTE_BUF_DESC + "Ljava/lang/Object;)V";
+    private static final String BYTE_ARRAY_TOOL = Type.getInternalName(ByteArrayTool.class);
+    private static final String HEX = Type.getInternalName(StringSchema.HEX.class);
+    private static final String GET_FROM = "(" + BYTE_BUF_DESC + "I)Ljava/lang/String;";
+    private static final String SET_TO = "(" + BYTE_BUF_DESC + "ILjava/lang/String;)V";
+
+    /** 连续定长字段少于该数量时不合并 */
+    private static final int MIN_BLOCK = 2;
+
+    /** 基本类型字段对应的ByteBuf方法 */
+    private static final Map<Class<?>, Primitive> PRIMITIVES = new HashMap<>(32);
+
+    static {
+        primitive(NumberPSchema.BOOL.class,           /**/boolean.class, "readBoolean", "Z", "writeBoolean", "Z");
+        primitive(NumberPSchema.CHAR.class,           /**/char.class, "readChar", "C", "writeChar", "I");
+        primitive(NumberPSchema.BYTE2Byte.class,      /**/byte.class, "readByte", "B", "writeByte", "I");
+        primitive(NumberPSchema.BYTE2Short.class,     /**/short.class, "readUnsignedByte", "S", "writeByte", "I");
+        primitive(NumberPSchema.BYTE2Int.class,       /**/int.class, "readUnsignedByte", "S", "writeByte", "I");
+        primitive(NumberPSchema.WORD2Short.class,     /**/short.class, "readShort", "S", "writeShort", "I");
+        primitive(NumberPSchema.WORD2Int.class,       /**/int.class, "readUnsignedShort", "I", "writeShort", "I");
+        primitive(NumberPSchema.MEDIUM2Int.class,     /**/int.class, "readMedium", "I", "writeMedium", "I");
+        primitive(NumberPSchema.DWORD2Int.class,      /**/int.class, "readInt", "I", "writeInt", "I");
+        primitive(NumberPSchema.DWORD2Long.class,     /**/long.class, "readUnsignedInt", "J", "writeInt", "I");
+        primitive(NumberPSchema.DWORD2Float.class,    /**/float.class, "readFloat", "F", "writeFloat", "F");
+        primitive(NumberPSchema.QWORD2Long.class,     /**/long.class, "readLong", "J", "writeLong", "J");
+        primitive(NumberPSchema.QWORD2Double.class,   /**/double.class, "readDouble", "D", "writeDouble", "D");
+        primitive(NumberPSchema.CHARLE.class,         /**/char.class, "readShortLE", "S", "writeShortLE", "I");
+        primitive(NumberPSchema.WORD2ShortLE.class,   /**/short.class, "readShortLE", "S", "writeShortLE", "I");
+        primitive(NumberPSchema.WORD2IntLE.class,     /**/int.class, "readUnsignedShortLE", "I", "writeShortLE", "I");
+        primitive(NumberPSchema.MEDIUM2IntLE.class,   /**/int.class, "readMediumLE", "I", "writeMediumLE", "I");
+        primitive(NumberPSchema.DWORD2IntLE.class,    /**/int.class, "readIntLE", "I", "writeIntLE", "I");
+        primitive(NumberPSchema.DWORD2LongLE.class,   /**/long.class, "readUnsignedIntLE", "J", "writeIntLE", "I");
+        primitive(NumberPSchema.DWORD2FloatLE.class,  /**/float.class, "readFloatLE", "F", "writeFloatLE", "F");
+        primitive(NumberPSchema.QWORD2LongLE.class,   /**/long.class, "readLongLE", "J", "writeLongLE", "J");
+        primitive(NumberPSchema.QWORD2DoubleLE.class, /**/double.class, "readDoubleLE", "D", "writeDoubleLE", "D");
+    }
+
+    private static void primitive(Class<?> schemaClass, Class<?> fieldType, String read, String readType, String write, String writeType) {
+        PRIMITIVES.put(schemaClass, new Primitive(fieldType, read, readType, write, writeType));
+    }
+
+    private static class Primitive {
+        private final Class<?> fieldType;
+        private final String read;
+        private final String readDesc;
+        private final String write;
+        private final String writeDesc;
+        /** ByteArrayTool中的同名方法，如getInt(byte[], int)、setInt(byte[], int, int) */
+        private final String get;
+        private final String getDesc;
+        private final String set;
+        private final String setDesc;
+        /** ByteBuf按绝对位置读写的同名方法，如getInt(int)、setInt(int, int) */
+        private final String indexGetDesc;
+        private final String indexSetDesc;
+
+        private Primitive(Class<?> fieldType, String read, String readType, String write, String writeType) {
+            this.fieldType = fieldType;
+            this.read = read;
+            this.readDesc = "()" + readType;
+            this.write = write;
+            this.writeDesc = "(" + writeType + ")" + BYTE_BUF_DESC;
+            this.get = "get" + read.substring(4);
+            this.getDesc = "([BI)" + readType;
+            this.set = "set" + write.substring(5);
+            this.setDesc = "([BI" + writeType + ")V";
+            this.indexGetDesc = "(I)" + readType;
+            this.indexSetDesc = "(I" + writeType + ")" + BYTE_BUF_DESC;
+        }
+    }
+
+    private AccessorGenerator() {
+    }
+
+    /** 生成失败返回null，由调用方回退到反射 */
+    static Accessor generate(Class<?> typeClass, BasicField[] fields) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(typeClass, MethodHandles.lookup());
+            lookup.accessClass(typeClass);
+
+            int length = fields.length;
+            boolean[] direct = new boolean[length];
+            boolean[] resettable = new boolean[length];
+            for (int i = 0; i < length; i++) {
+                boolean accessible = isAccessible(lookup, typeClass, fields[i]);
+                direct[i] = accessible && isDirect(fields[i]);
+                resettable[i] = accessible && !overrides(fields[i].getClass(), "reset", Object.class);
+            }
+
+            String className = Type.getInternalName(typeClass) + "$Accessor";
+            byte[] bytes = generate(className, Type.getInternalName(typeClass), fields, direct, resettable);
+            MethodHandles.Lookup hidden = lookup.defineHiddenClass(bytes, true, MethodHandles.Lookup.ClassOption.NESTMATE);
+            MethodHandle constructor = hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class, BasicField[].class));
+            return (Accessor) constructor.invoke(fields);
+        } catch (VirtualMachineError e) {
+            throw e;
+        } catch (Throwable e) {
+            log.warn("生成Accessor失败，使用反射读写:{} {}", typeClass.getName(), e.toString());
+            return null;
+        }
+    }
+
+    /** 隐藏类可直接读写该字段，其他包中父类的protected字段只有子类能访问，隐藏类不是子类，排除 */
+    private static boolean isAccessible(MethodHandles.Lookup lookup, Class<?> typeClass, BasicField field) {
+        java.lang.reflect.Field f = field.reflectField();
+        if (Modifier.isProtected(f.getModifiers()) && !f.getDeclaringClass().getPackageName().equals(typeClass.getPackageName()))
+            return false;
+        try {
+            lookup.accessClass(f.getType());
+            lookup.findGetter(f.getDeclaringClass(), f.getName(), f.getType());
+            lookup.findSetter(f.getDeclaringClass(), f.getName(), f.getType());
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /** 未自定义readAndSet/getAndWrite */
+    private static boolean isDirect(BasicField field) {
+        java.lang.reflect.Field f = field.reflectField();
+        Primitive primitive = PRIMITIVES.get(field.getClass());
+        if (primitive != null)
+            return primitive.fieldType == f.getType();
+        if (f.getType().isPrimitive())
+            return false;
+        return !overrides(field.getClass(), "readAndSet", ByteBuf.class, Object.class) && !overrides(field.getClass(), "getAndWrite", ByteBuf.class, Object.class);
+    }
+
+    private static boolean overrides(Class<?> fieldClass, String name, Class<?>... parameterTypes) {
+        try {
+            return fieldClass.getMethod(name, parameterTypes).getDeclaringClass() != BasicField.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    private static byte[] generate(String className, String typeName, BasicField[] fields, boolean[] direct, boolean[] resettable) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(V17, ACC_FINAL | ACC_SUPER, className, null, "java/lang/Object", new String[]{ACCESSOR});
+
+        for (int i = 0; i < fields.length; i++)
+            cw.visitField(ACC_PRIVATE | ACC_FINAL, "f" + i, BASIC_FIELD_DESC, null, null).visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "([" + BASIC_FIELD_DESC + ")V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        for (int i = 0; i < fields.length; i++) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitLdcInsn(i);
+            mv.visitInsn(AALOAD);
+            mv.visitFieldInsn(PUTFIELD, className, "f" + i, BASIC_FIELD_DESC);
+        }
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        int[] sizes = fixedSizes(fields, direct);
+        generateMergeFrom(cw, className, typeName, fields, direct, sizes);
+        generateWriteTo(cw, className, typeName, fields, direct, sizes);
+        generateReset(cw, className, typeName, fields, resettable);
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /** 可按偏移量直接读写的定长字段的字节数，其他字段为-1 */
+    private static int[] fixedSizes(BasicField[] fields, boolean[] direct) {
+        int[] sizes = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            BasicField field = fields[i];
+            Class<?> fieldClass = field.getClass();
+            boolean absolute = PRIMITIVES.containsKey(fieldClass) || fieldClass == StringSchema.HEX.class || fieldClass == StringSchema.BCD.class;
+            sizes[i] = direct[i] && absolute ? field.fixedSize() : -1;
+        }
+        return sizes;
+    }
+
+    /** 从start开始的连续定长字段的结束位置，不足MIN_BLOCK个时返回start */
+    private static int blockEnd(int[] sizes, int start) {
+        int end = start;
+        while (end < sizes.length && sizes[end] >= 0)
+            end++;
+        return end - start >= MIN_BLOCK ? end : start;
+    }
+
+    /**
+     * for (field : fields) { if (!input.isReadable()) return; message.field = read(input); }
+     * 连续定长字段合并为一段: if (input.readableBytes() >= size) { if (input.hasArray()) { message.field = ByteArrayTool.getXxx(array, offset + i); ... } else { message.field = input.getXxx(base + i); ... } }
+     */
+    private static void generateMergeFrom(ClassWriter cw, String className, String typeName, BasicField[] fields, boolean[] direct, int[] sizes) {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "mergeFrom", "(" + BYTE_BUF_DESC + "Ljava/lang/Object;)V", null, new String[]{"java/lang/Exception"});
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitTypeInsn(CHECKCAST, typeName);
+        mv.visitVarInsn(ASTORE, 3);
+        Label handler = beginTry(mv);
+
+        Label end = new Label();
+        for (int i = 0; i < fields.length; ) {
+            int blockEnd = blockEnd(sizes, i);
+            if (blockEnd == i) {
+                readField(mv, className, fields, direct, i, end);
+                i++;
+                continue;
+            }
+
+            int size = 0;
+            for (int j = i; j < blockEnd; j++)
+                size += sizes[j];
+
+            Label slow = new Label();
+            Label indexed = new Label();
+            Label move = new Label();
+            Label next = new Label();
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, "readableBytes", "()I", false);
+            mv.visitLdcInsn(size);
+            mv.visitJumpInsn(IF_ICMPLT, slow);
+
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, "readerIndex", "()I", false);
+            mv.visitVarInsn(ISTORE, 4);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, "hasArray", "()Z", false);
+            mv.visitJumpInsn(IFEQ, indexed);
+            loadArray(mv);
+            for (int j = i, offset = 0; j < blockEnd; offset += sizes[j], j++)
+                getField(mv, className, fields[j], j, offset, true);
+            mv.visitJumpInsn(GOTO, move);
+
+            mv.visitLabel(indexed);
+            for (int j = i, offset = 0; j < blockEnd; offset += sizes[j], j++)
+                getField(mv, className, fields[j], j, offset, false);
+
+            mv.visitLabel(move);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitVarInsn(ILOAD, 4);
+            mv.visitLdcInsn(size);
+            mv.visitInsn(IADD);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, "readerIndex", "(I)" + BYTE_BUF_DESC, false);
+            mv.visitInsn(POP);
+            mv.visitJumpInsn(GOTO, next);
+
+            //可读字节不足时逐个读取，与未合并时的行为一致
+            mv.visitLabel(slow);
+            for (int j = i; j < blockEnd; j++)
+                readField(mv, className, fields, direct, j, end);
+            mv.visitLabel(next);
+            i = blockEnd;
+        }
+        mv.visitLabel(end);
+        mv.visitInsn(RETURN);
+        endTry(mv, handler);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void readField(MethodVisitor mv, String className, BasicField[] fields, boolean[] direct, int i, Label end) {
+        markField(mv, i);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, "isReadable", "()Z", false);
+        mv.visitJumpInsn(IFEQ, end);
+
+        BasicField field = fields[i];
+        java.lang.reflect.Field f = field.reflectField();
+        if (!direct[i]) {
+            loadField(mv, className, i);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitVarInsn(ALOAD, 3);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BASIC_FIELD, "readAndSet", READ_AND_SET, false);
+            return;
+        }
+
+        mv.visitVarInsn(ALOAD, 3);
+        Primitive primitive = PRIMITIVES.get(field.getClass());
+        if (primitive != null) {
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, primitive.read, primitive.readDesc, false);
+        } else {
+            loadField(mv, className, i);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BASIC_FIELD, "readFrom", READ_FROM, false);
+            mv.visitTypeInsn(CHECKCAST, Type.getInternalName(f.getType()));
+        }
+        putField(mv, f);
+    }
+
+    /** message.field = ByteArrayTool.getXxx(array, arrayOffset + offset)，非数组时message.field = buf.getXxx(base + offset) */
+    private static void getField(MethodVisitor mv, String className, BasicField field, int i, int offset, boolean array) {
+        markField(mv, i);
+        mv.visitVarInsn(ALOAD, 3);
+        Primitive primitive = PRIMITIVES.get(field.getClass());
+        if (primitive != null && array) {
+            mv.visitVarInsn(ALOAD, 5);
+            loadIndex(mv, 6, offset);
+            mv.visitMethodInsn(INVOKESTATIC, BYTE_ARRAY_TOOL, primitive.get, primitive.getDesc, false);
+        } else if (primitive != null) {
+            mv.visitVarInsn(ALOAD, 1);
+            loadIndex(mv, 4, offset);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, primitive.get, primitive.indexGetDesc, false);
+        } else {
+            loadField(mv, className, i);
+            mv.visitTypeInsn(CHECKCAST, HEX);
+            mv.visitVarInsn(ALOAD, 1);
+            loadIndex(mv, 4, offset);
+            mv.visitMethodInsn(INVOKEVIRTUAL, HEX, "getFrom", GET_FROM, false);
+        }
+        putField(mv, field.reflectField());
+    }
+
+    /**
+     * for (field : fields) { write(output, message.field); }
+     * 连续定长字段合并为一段: output.ensureWritable(size); if (output.hasArray()) { ByteArrayTool.setXxx(array, offset + i, message.field); ... } else { output.setXxx(base + i, message.field); ... }
+     */
+    private static void generateWriteTo(ClassWriter cw, String className, String typeName, BasicField[] fields, boolean[] direct, int[] sizes) {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "writeTo", "(" + BYTE_BUF_DESC + "Ljava/lang/Object;)V", null, new String[]{"java/lang/Exception"});
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitTypeInsn(CHECKCAST, typeName);
+        mv.visitVarInsn(ASTORE, 3);
+        Label handler = beginTry(mv);
+
+        for (int i = 0; i < fields.length; ) {
+            int blockEnd = blockEnd(sizes, i);
+            if (blockEnd == i) {
+                writeField(mv, className, fields, direct, i);
+                i++;
+                continue;
+            }
+
+            int size = 0;
+            for (int j = i; j < blockEnd; j++)
+                size += sizes[j];
+
+            Label indexed = new Label();
+            Label move = new Label();
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitLdcInsn(size);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, "ensureWritable", "(I)" + BYTE_BUF_DESC, false);
+            mv.visitInsn(POP);
+
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, "writerIndex", "()I", false);
+            mv.visitVarInsn(ISTORE, 4);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, "hasArray", "()Z", false);
+            mv.visitJumpInsn(IFEQ, indexed);
+            loadArray(mv);
+            for (int j = i, offset = 0; j < blockEnd; offset += sizes[j], j++)
+                setField(mv, className, fields[j], j, offset, true);
+            mv.visitJumpInsn(GOTO, move);
+
+            mv.visitLabel(indexed);
+            for (int j = i, offset = 0; j < blockEnd; offset += sizes[j], j++)
+                setField(mv, className, fields[j], j, offset, false);
+
+            mv.visitLabel(move);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitVarInsn(ILOAD, 4);
+            mv.visitLdcInsn(size);
+            mv.visitInsn(IADD);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, "writerIndex", "(I)" + BYTE_BUF_DESC, false);
+            mv.visitInsn(POP);
+            i = blockEnd;
+        }
+        mv.visitInsn(RETURN);
+        endTry(mv, handler);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void writeField(MethodVisitor mv, String className, BasicField[] fields, boolean[] direct, int i) {
+        markField(mv, i);
+        BasicField field = fields[i];
+        java.lang.reflect.Field f = field.reflectField();
+        if (!direct[i]) {
+            loadField(mv, className, i);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitVarInsn(ALOAD, 3);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BASIC_FIELD, "getAndWrite", GET_AND_WRITE, false);
+            return;
+        }
+
+        Primitive primitive = PRIMITIVES.get(field.getClass());
+        if (primitive != null) {
+            mv.visitVarInsn(ALOAD, 1);
+            getField(mv, f);
+            if (primitive.fieldType == long.class && primitive.writeDesc.startsWith("(I"))
+                mv.visitInsn(L2I);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, primitive.write, primitive.writeDesc, false);
+            mv.visitInsn(POP);
+        } else {
+            loadField(mv, className, i);
+            mv.visitVarInsn(ALOAD, 1);
+            getField(mv, f);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BASIC_FIELD, "writeTo", WRITE_TO, false);
+        }
+    }
+
+    /** ByteArrayTool.setXxx(array, arrayOffset + offset, message.field)，非数组时buf.setXxx(base + offset, message.field) */
+    private static void setField(MethodVisitor mv, String className, BasicField field, int i, int offset, boolean array) {
+        markField(mv, i);
+        java.lang.reflect.Field f = field.reflectField();
+        Primitive primitive = PRIMITIVES.get(field.getClass());
+        if (primitive != null && array) {
+            mv.visitVarInsn(ALOAD, 5);
+            loadIndex(mv, 6, offset);
+            getField(mv, f);
+            if (primitive.fieldType == long.class && primitive.setDesc.startsWith("([BII"))
+                mv.visitInsn(L2I);
+            mv.visitMethodInsn(INVOKESTATIC, BYTE_ARRAY_TOOL, primitive.set, primitive.setDesc, false);
+        } else if (primitive != null) {
+            mv.visitVarInsn(ALOAD, 1);
+            loadIndex(mv, 4, offset);
+            getField(mv, f);
+            if (primitive.fieldType == long.class && primitive.indexSetDesc.startsWith("(II"))
+                mv.visitInsn(L2I);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, primitive.set, primitive.indexSetDesc, false);
+            mv.visitInsn(POP);
+        } else {
+            loadField(mv, className, i);
+            mv.visitTypeInsn(CHECKCAST, HEX);
+            mv.visitVarInsn(ALOAD, 1);
+            loadIndex(mv, 4, offset);
+            getField(mv, f);
+            mv.visitMethodInsn(INVOKEVIRTUAL, HEX, "setTo", SET_TO, false);
+        }
+    }
+
+    /** for (field : fields) { message.field = 0/false/null; }，容器等自定义了reset的字段调用BasicField.reset */
+    private static void generateReset(ClassWriter cw, String className, String typeName, BasicField[] fields, boolean[] resettable) {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "reset", "(Ljava/lang/Object;)V", null, new String[]{"java/lang/Exception"});
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitTypeInsn(CHECKCAST, typeName);
+        mv.visitVarInsn(ASTORE, 3);
+
+        for (int i = 0; i < fields.length; i++) {
+            if (!resettable[i]) {
+                loadField(mv, className, i);
+                mv.visitVarInsn(ALOAD, 3);
+                mv.visitMethodInsn(INVOKEVIRTUAL, BASIC_FIELD, "reset", "(Ljava/lang/Object;)V", false);
+                continue;
+            }
+            java.lang.reflect.Field f = fields[i].reflectField();
+            mv.visitVarInsn(ALOAD, 3);
+            Class<?> type = f.getType();
+            if (!type.isPrimitive())
+                mv.visitInsn(ACONST_NULL);
+            else if (type == long.class)
+                mv.visitInsn(LCONST_0);
+            else if (type == float.class)
+                mv.visitInsn(FCONST_0);
+            else if (type == double.class)
+                mv.visitInsn(DCONST_0);
+            else
+                mv.visitInsn(ICONST_0);
+            putField(mv, f);
+        }
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /** index = 0; try {，返回catch的位置 */
+    private static Label beginTry(MethodVisitor mv) {
+        Label start = new Label();
+        Label handler = new Label();
+        mv.visitTryCatchBlock(start, handler, handler, "java/lang/Exception");
+        mv.visitInsn(ICONST_0);
+        mv.visitVarInsn(ISTORE, 7);
+        mv.visitLabel(start);
+        return handler;
+    }
+
+    /** } catch (Exception e) { throw new Accessor.FieldException(index, e); } */
+    private static void endTry(MethodVisitor mv, Label handler) {
+        mv.visitLabel(handler);
+        mv.visitVarInsn(ASTORE, 8);
+        mv.visitTypeInsn(NEW, FIELD_EXCEPTION);
+        mv.visitInsn(DUP);
+        mv.visitVarInsn(ILOAD, 7);
+        mv.visitVarInsn(ALOAD, 8);
+        mv.visitMethodInsn(INVOKESPECIAL, FIELD_EXCEPTION, "<init>", "(ILjava/lang/Throwable;)V", false);
+        mv.visitInsn(ATHROW);
+    }
+
+    /** 记录当前字段的下标，失败时用于定位字段 */
+    private static void markField(MethodVisitor mv, int i) {
+        mv.visitLdcInsn(i);
+        mv.visitVarInsn(ISTORE, 7);
+    }
+
+    /** array = buf.array(); arrayOffset = buf.arrayOffset() + base */
+    private static void loadArray(MethodVisitor mv) {
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, "array", "()[B", false);
+        mv.visitVarInsn(ASTORE, 5);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUF, "arrayOffset", "()I", false);
+        mv.visitVarInsn(ILOAD, 4);
+        mv.visitInsn(IADD);
+        mv.visitVarInsn(ISTORE, 6);
+    }
+
+    /** base + offset */
+    private static void loadIndex(MethodVisitor mv, int local, int offset) {
+        mv.visitVarInsn(ILOAD, local);
+        if (offset != 0) {
+            mv.visitLdcInsn(offset);
+            mv.visitInsn(IADD);
+        }
+    }
+
+    private static void getField(MethodVisitor mv, java.lang.reflect.Field f) {
+        mv.visitVarInsn(ALOAD, 3);
+        mv.visitFieldInsn(GETFIELD, Type.getInternalName(f.getDeclaringClass()), f.getName(), Type.getDescriptor(f.getType()));
+    }
+
+    private static void putField(MethodVisitor mv, java.lang.reflect.Field f) {
+        mv.visitFieldInsn(PUTFIELD, Type.getInternalName(f.getDeclaringClass()), f.getName(), Type.getDescriptor(f.getType()));
+    }
+
+    private static void loadField(MethodVisitor mv, String className, int i) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, className, "f" + i, BASIC_FIELD_DESC);
+    }
+}
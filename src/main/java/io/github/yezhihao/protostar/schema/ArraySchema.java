@@ -2,9 +2,15 @@ package io.github.yezhihao.protostar.schema;
 
 import io.github.yezhihao.protostar.Schema;
 import io.github.yezhihao.protostar.field.BasicField;
+import io.github.yezhihao.protostar.util.ByteBufUtils;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
+ * 基本类型数组，元素较多时通过NIO视图整块复制，LE后缀为小端字节序
  * @author yezhihao
  * https://gitee.com/yezhihao/jt808-server
  */
@@ -17,6 +23,33 @@ public class ArraySchema {
     public static final Schema<float[]> FLOATS = new FloatArray();
     public static final Schema<long[]> LONGS = new LongArray();
     public static final Schema<double[]> DOUBLES = new DoubleArray();
+    public static final Schema<char[]> CHARS_LE = new CharArrayLE();
+    public static final Schema<short[]> SHORTS_LE = new ShortArrayLE();
+    public static final Schema<int[]> INTS_LE = new IntArrayLE();
+    public static final Schema<float[]> FLOATS_LE = new FloatArrayLE();
+    public static final Schema<long[]> LONGS_LE = new LongArrayLE();
+    public static final Schema<double[]> DOUBLES_LE = new DoubleArrayLE();
+
+    /** 元素少于该数量时逐个读写，避免创建视图的开销 */
+    private static final int BULK_THRESHOLD = 16;
+
+    /** 可读区域的视图，readerIndex后移length */
+    private static ByteBuffer readView(ByteBuf input, int length, ByteOrder order) {
+        ByteBuffer view = input.nioBuffer(input.readerIndex(), length).order(order);
+        input.skipBytes(length);
+        return view;
+    }
+
+    /** 可写区域的视图，writerIndex后移length；output不是单块连续内存时(如CompositeByteBuf)nioBuffer可能是副本，返回null */
+    private static ByteBuffer writeView(ByteBuf output, int length, ByteOrder order) {
+        output.ensureWritable(length);
+        if (output.nioBufferCount() != 1)
+            return null;
+        int writerIndex = output.writerIndex();
+        ByteBuffer view = output.nioBuffer(writerIndex, length).order(order);
+        output.writerIndex(writerIndex + length);
+        return view;
+    }
 
     protected static class ByteArray extends BasicField<byte[]> {
         @Override
@@ -26,125 +59,383 @@ public class ArraySchema {
             return array;
         }
 
+        /** 写入CompositeByteBuf时，大块数据直接引用array，写出之前不能修改array */
         @Override
         public void writeTo(ByteBuf output, byte[] array) {
             if (array == null) return;
-            output.writeBytes(array);
+            if (ByteBufUtils.composable(output, array.length))
+                ByteBufUtils.addComponent(output, Unpooled.wrappedBuffer(array));
+            else
+                output.writeBytes(array);
+        }
+
+        /** 定长写入可能截断，始终复制 */
+        @Override
+        public void writeTo(ByteBuf output, int length, byte[] array) {
+            int writerLength = output.writerIndex() + length;
+            if (array != null)
+                output.writeBytes(array);
+            output.writerIndex(writerLength);
+        }
+
+        @Override
+        public int sizeOf(byte[] array) {
+            if (array == null) return 0;
+            return array.length;
         }
     }
 
     protected static class CharArray extends BasicField<char[]> {
+        protected final ByteOrder order;
+
+        protected CharArray() {
+            this(ByteOrder.BIG_ENDIAN);
+        }
+
+        private CharArray(ByteOrder order) {
+            this.order = order;
+        }
+
         @Override
         public char[] readFrom(ByteBuf input) {
             int total = input.readableBytes() >> 1;
             char[] array = new char[total];
-            for (int i = 0; i < total; i++)
-                array[i] = input.readChar();
+            if (total >= BULK_THRESHOLD) {
+                readView(input, total << 1, order).asCharBuffer().get(array);
+            } else if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < total; i++)
+                    array[i] = input.readChar();
+            } else {
+                for (int i = 0; i < total; i++)
+                    array[i] = (char) input.readShortLE();
+            }
             return array;
         }
 
         @Override
         public void writeTo(ByteBuf output, char[] array) {
             if (array == null) return;
-            for (int i = 0; i < array.length; i++) {
-                output.writeChar(array[i]);
+            if (array.length >= BULK_THRESHOLD) {
+                ByteBuffer view = writeView(output, array.length << 1, order);
+                if (view != null) {
+                    view.asCharBuffer().put(array);
+                    return;
+                }
             }
+            if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < array.length; i++)
+                    output.writeChar(array[i]);
+            } else {
+                for (int i = 0; i < array.length; i++)
+                    output.writeShortLE(array[i]);
+            }
+        }
+
+        @Override
+        public int sizeOf(char[] array) {
+            if (array == null) return 0;
+            return array.length << 1;
+        }
+    }
+
+    protected static class CharArrayLE extends CharArray {
+        protected CharArrayLE() {
+            super(ByteOrder.LITTLE_ENDIAN);
         }
     }
 
     protected static class ShortArray extends BasicField<short[]> {
+        protected final ByteOrder order;
+
+        protected ShortArray() {
+            this(ByteOrder.BIG_ENDIAN);
+        }
+
+        private ShortArray(ByteOrder order) {
+            this.order = order;
+        }
+
         @Override
         public short[] readFrom(ByteBuf input) {
             int total = input.readableBytes() >> 1;
             short[] array = new short[total];
-            for (int i = 0; i < total; i++)
-                array[i] = input.readShort();
+            if (total >= BULK_THRESHOLD) {
+                readView(input, total << 1, order).asShortBuffer().get(array);
+            } else if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < total; i++)
+                    array[i] = input.readShort();
+            } else {
+                for (int i = 0; i < total; i++)
+                    array[i] = input.readShortLE();
+            }
             return array;
         }
 
         @Override
         public void writeTo(ByteBuf output, short[] array) {
             if (array == null) return;
-            for (int i = 0; i < array.length; i++) {
-                output.writeShort(array[i]);
+            if (array.length >= BULK_THRESHOLD) {
+                ByteBuffer view = writeView(output, array.length << 1, order);
+                if (view != null) {
+                    view.asShortBuffer().put(array);
+                    return;
+                }
+            }
+            if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < array.length; i++)
+                    output.writeShort(array[i]);
+            } else {
+                for (int i = 0; i < array.length; i++)
+                    output.writeShortLE(array[i]);
             }
         }
+
+        @Override
+        public int sizeOf(short[] array) {
+            if (array == null) return 0;
+            return array.length << 1;
+        }
+    }
+
+    protected static class ShortArrayLE extends ShortArray {
+        protected ShortArrayLE() {
+            super(ByteOrder.LITTLE_ENDIAN);
+        }
     }
 
     protected static class IntArray extends BasicField<int[]> {
+        protected final ByteOrder order;
+
+        protected IntArray() {
+            this(ByteOrder.BIG_ENDIAN);
+        }
+
+        private IntArray(ByteOrder order) {
+            this.order = order;
+        }
+
         @Override
         public int[] readFrom(ByteBuf input) {
             int total = input.readableBytes() >> 2;
             int[] array = new int[total];
-            for (int i = 0; i < total; i++)
-                array[i] = input.readInt();
+            if (total >= BULK_THRESHOLD) {
+                readView(input, total << 2, order).asIntBuffer().get(array);
+            } else if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < total; i++)
+                    array[i] = input.readInt();
+            } else {
+                for (int i = 0; i < total; i++)
+                    array[i] = input.readIntLE();
+            }
             return array;
         }
 
         @Override
         public void writeTo(ByteBuf output, int[] array) {
             if (array == null) return;
-            for (int i = 0; i < array.length; i++) {
-                output.writeInt(array[i]);
+            if (array.length >= BULK_THRESHOLD) {
+                ByteBuffer view = writeView(output, array.length << 2, order);
+                if (view != null) {
+                    view.asIntBuffer().put(array);
+                    return;
+                }
+            }
+            if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < array.length; i++)
+                    output.writeInt(array[i]);
+            } else {
+                for (int i = 0; i < array.length; i++)
+                    output.writeIntLE(array[i]);
             }
         }
+
+        @Override
+        public int sizeOf(int[] array) {
+            if (array == null) return 0;
+            return array.length << 2;
+        }
+    }
+
+    protected static class IntArrayLE extends IntArray {
+        protected IntArrayLE() {
+            super(ByteOrder.LITTLE_ENDIAN);
+        }
     }
 
     protected static class LongArray extends BasicField<long[]> {
+        protected final ByteOrder order;
+
+        protected LongArray() {
+            this(ByteOrder.BIG_ENDIAN);
+        }
+
+        private LongArray(ByteOrder order) {
+            this.order = order;
+        }
+
         @Override
         public long[] readFrom(ByteBuf input) {
             int total = input.readableBytes() >> 3;
             long[] array = new long[total];
-            for (int i = 0; i < total; i++)
-                array[i] = input.readLong();
+            if (total >= BULK_THRESHOLD) {
+                readView(input, total << 3, order).asLongBuffer().get(array);
+            } else if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < total; i++)
+                    array[i] = input.readLong();
+            } else {
+                for (int i = 0; i < total; i++)
+                    array[i] = input.readLongLE();
+            }
             return array;
         }
 
         @Override
         public void writeTo(ByteBuf output, long[] array) {
             if (array == null) return;
-            for (int i = 0; i < array.length; i++) {
-                output.writeLong(array[i]);
+            if (array.length >= BULK_THRESHOLD) {
+                ByteBuffer view = writeView(output, array.length << 3, order);
+                if (view != null) {
+                    view.asLongBuffer().put(array);
+                    return;
+                }
+            }
+            if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < array.length; i++)
+                    output.writeLong(array[i]);
+            } else {
+                for (int i = 0; i < array.length; i++)
+                    output.writeLongLE(array[i]);
             }
         }
+
+        @Override
+        public int sizeOf(long[] array) {
+            if (array == null) return 0;
+            return array.length << 3;
+        }
+    }
+
+    protected static class LongArrayLE extends LongArray {
+        protected LongArrayLE() {
+            super(ByteOrder.LITTLE_ENDIAN);
+        }
     }
 
     protected static class FloatArray extends BasicField<float[]> {
+        protected final ByteOrder order;
+
+        protected FloatArray() {
+            this(ByteOrder.BIG_ENDIAN);
+        }
+
+        private FloatArray(ByteOrder order) {
+            this.order = order;
+        }
+
         @Override
         public float[] readFrom(ByteBuf input) {
             int total = input.readableBytes() >> 2;
             float[] array = new float[total];
-            for (int i = 0; i < total; i++)
-                array[i] = input.readFloat();
+            if (total >= BULK_THRESHOLD) {
+                readView(input, total << 2, order).asFloatBuffer().get(array);
+            } else if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < total; i++)
+                    array[i] = input.readFloat();
+            } else {
+                for (int i = 0; i < total; i++)
+                    array[i] = input.readFloatLE();
+            }
             return array;
         }
 
-
         @Override
         public void writeTo(ByteBuf output, float[] array) {
             if (array == null) return;
-            for (int i = 0; i < array.length; i++) {
-                output.writeFloat(array[i]);
+            if (array.length >= BULK_THRESHOLD) {
+                ByteBuffer view = writeView(output, array.length << 2, order);
+                if (view != null) {
+                    view.asFloatBuffer().put(array);
+                    return;
+                }
+            }
+            if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < array.length; i++)
+                    output.writeFloat(array[i]);
+            } else {
+                for (int i = 0; i < array.length; i++)
+                    output.writeFloatLE(array[i]);
             }
         }
+
+        @Override
+        public int sizeOf(float[] array) {
+            if (array == null) return 0;
+            return array.length << 2;
+        }
+    }
+
+    protected static class FloatArrayLE extends FloatArray {
+        protected FloatArrayLE() {
+            super(ByteOrder.LITTLE_ENDIAN);
+        }
     }
 
     protected static class DoubleArray extends BasicField<double[]> {
+        protected final ByteOrder order;
+
+        protected DoubleArray() {
+            this(ByteOrder.BIG_ENDIAN);
+        }
+
+        private DoubleArray(ByteOrder order) {
+            this.order = order;
+        }
+
         @Override
         public double[] readFrom(ByteBuf input) {
             int total = input.readableBytes() >> 3;
             double[] array = new double[total];
-            for (int i = 0; i < total; i++)
-                array[i] = input.readDouble();
+            if (total >= BULK_THRESHOLD) {
+                readView(input, total << 3, order).asDoubleBuffer().get(array);
+            } else if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < total; i++)
+                    array[i] = input.readDouble();
+            } else {
+                for (int i = 0; i < total; i++)
+                    array[i] = input.readDoubleLE();
+            }
             return array;
         }
 
         @Override
         public void writeTo(ByteBuf output, double[] array) {
             if (array == null) return;
-            for (int i = 0; i < array.length; i++) {
-                output.writeDouble(array[i]);
+            if (array.length >= BULK_THRESHOLD) {
+                ByteBuffer view = writeView(output, array.length << 3, order);
+                if (view != null) {
+                    view.asDoubleBuffer().put(array);
+                    return;
+                }
+            }
+            if (order == ByteOrder.BIG_ENDIAN) {
+                for (int i = 0; i < array.length; i++)
+                    output.writeDouble(array[i]);
+            } else {
+                for (int i = 0; i < array.length; i++)
+                    output.writeDoubleLE(array[i]);
             }
         }
+
+        @Override
+        public int sizeOf(double[] array) {
+            if (array == null) return 0;
+            return array.length << 3;
+        }
+    }
+
+    protected static class DoubleArrayLE extends DoubleArray {
+        protected DoubleArrayLE() {
+            super(ByteOrder.LITTLE_ENDIAN);
+        }
     }
-}
\ No newline at end of file
+}
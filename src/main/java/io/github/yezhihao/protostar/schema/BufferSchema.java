@@ -1,7 +1,9 @@
 package io.github.yezhihao.protostar.schema;
 
 import io.github.yezhihao.protostar.field.BasicField;
+import io.github.yezhihao.protostar.util.ByteBufUtils;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 import java.nio.ByteBuffer;
 
@@ -12,9 +14,35 @@ public abstract class BufferSchema {
             return input.readSlice(input.readableBytes());
         }
 
+        /** 写入CompositeByteBuf时，大块数据作为value的切片追加，不复制 */
         @Override
         public void writeTo(ByteBuf output, ByteBuf value) {
+            if (ByteBufUtils.composable(output, value.readableBytes()))
+                ByteBufUtils.addComponent(output, value.readRetainedSlice(value.readableBytes()));
+            else
+                output.writeBytes(value);
+        }
+
+        /** 定长写入可能截断，始终复制 */
+        @Override
+        public void writeTo(ByteBuf output, int length, ByteBuf value) {
+            int writerLength = output.writerIndex() + length;
             output.writeBytes(value);
+            output.writerIndex(writerLength);
+        }
+
+        @Override
+        public int sizeOf(ByteBuf value) {
+            if (value == null) return 0;
+            return value.readableBytes();
+        }
+    }
+
+    /** 解码为retainedSlice，引用计数由消息持有者负责，输入ByteBuf释放后仍可使用 */
+    public static class RetainedByteBufSchema extends ByteBufSchema {
+        @Override
+        public ByteBuf readFrom(ByteBuf input) {
+            return input.readRetainedSlice(input.readableBytes());
         }
     }
 
@@ -28,7 +56,26 @@ public abstract class BufferSchema {
 
         @Override
         public void writeTo(ByteBuf output, ByteBuffer value) {
+            if (ByteBufUtils.composable(output, value.remaining())) {
+                ByteBufUtils.addComponent(output, Unpooled.wrappedBuffer(value.slice()));
+                value.position(value.limit());
+            } else {
+                output.writeBytes(value);
+            }
+        }
+
+        /** 定长写入可能截断，始终复制 */
+        @Override
+        public void writeTo(ByteBuf output, int length, ByteBuffer value) {
+            int writerLength = output.writerIndex() + length;
             output.writeBytes(value);
+            output.writerIndex(writerLength);
+        }
+
+        @Override
+        public int sizeOf(ByteBuffer value) {
+            if (value == null) return 0;
+            return value.remaining();
         }
     }
 }
\ No newline at end of file
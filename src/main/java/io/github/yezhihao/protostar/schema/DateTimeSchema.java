@@ -39,6 +39,16 @@ public class DateTimeSchema {
         public void writeTo(ByteBuf output, LocalDateTime value) {
             tool.writeDateTime6(output, value);
         }
+
+        @Override
+        public int sizeOf(LocalDateTime value) {
+            return 6;
+        }
+
+        @Override
+        public int fixedSize() {
+            return 6;
+        }
     }
 
     protected static class DateTime7 extends BasicField<LocalDateTime> {
@@ -57,6 +67,16 @@ public class DateTimeSchema {
         public void writeTo(ByteBuf output, LocalDateTime value) {
             tool.writeDateTime7(output, value);
         }
+
+        @Override
+        public int sizeOf(LocalDateTime value) {
+            return 7;
+        }
+
+        @Override
+        public int fixedSize() {
+            return 7;
+        }
     }
 
     protected static class Date3 extends BasicField<LocalDate> {
@@ -75,6 +95,16 @@ public class DateTimeSchema {
         public void writeTo(ByteBuf output, LocalDate value) {
             tool.writeDate3(output, value);
         }
+
+        @Override
+        public int sizeOf(LocalDate value) {
+            return 3;
+        }
+
+        @Override
+        public int fixedSize() {
+            return 3;
+        }
     }
 
     protected static class Date4 extends BasicField<LocalDate> {
@@ -93,6 +123,16 @@ public class DateTimeSchema {
         public void writeTo(ByteBuf output, LocalDate value) {
             tool.writeDate4(output, value);
         }
+
+        @Override
+        public int sizeOf(LocalDate value) {
+            return 4;
+        }
+
+        @Override
+        public int fixedSize() {
+            return 4;
+        }
     }
 
     protected static class Time3 extends BasicField<LocalTime> {
@@ -111,6 +151,16 @@ public class DateTimeSchema {
         public void writeTo(ByteBuf output, LocalTime value) {
             tool.writeTime3(output, value);
         }
+
+        @Override
+        public int sizeOf(LocalTime value) {
+            return 3;
+        }
+
+        @Override
+        public int fixedSize() {
+            return 3;
+        }
     }
 
     protected static class Time2 extends BasicField<LocalTime> {
@@ -129,5 +179,15 @@ public class DateTimeSchema {
         public void writeTo(ByteBuf output, LocalTime value) {
             tool.writeTime2(output, value);
         }
+
+        @Override
+        public int sizeOf(LocalTime value) {
+            return 2;
+        }
+
+        @Override
+        public int fixedSize() {
+            return 2;
+        }
     }
 }
\ No newline at end of file
@@ -3,9 +3,13 @@ package io.github.yezhihao.protostar.schema;
 import io.github.yezhihao.protostar.PrepareLoadStrategy;
 import io.github.yezhihao.protostar.Schema;
 import io.github.yezhihao.protostar.field.BasicField;
+import io.github.yezhihao.protostar.util.Explain;
+import io.github.yezhihao.protostar.util.IntMap;
 import io.github.yezhihao.protostar.util.IntTool;
 import io.github.yezhihao.protostar.util.KeyValuePair;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,13 +24,80 @@ public abstract class MapSchema<K, V> extends BasicField<Entry<K, V>> {
     public final IntTool intTool;
     public final Map<K, Schema> valueSchema;
 
+    /** key为整数定长类型时不装箱读写，否则为null */
+    private final NumberSchema.FixedNumber intKey;
+    /** key均为0到DENSE_LIMIT之间的Integer时，按key下标查找valueSchema，否则为null */
+    private final Schema[] denseSchema;
+    /** key解码为Integer且denseSchema不为null时为true，可用readKey读取基本类型的key */
+    private final boolean intKeys;
+
+    private static final int DENSE_LIMIT = 1024;
+
     public MapSchema(Schema<K> keySchema, int lengthUnit) {
+        this(keySchema, lengthUnit, false);
+    }
+
+    /** @param littleEndian 值的前置长度是否为小端 */
+    public MapSchema(Schema<K> keySchema, int lengthUnit, boolean littleEndian) {
         this.keySchema = keySchema;
         this.lengthUnit = lengthUnit;
-        this.intTool = IntTool.getInstance(lengthUnit);
+        this.intTool = IntTool.getInstance(lengthUnit, littleEndian);
         PrepareLoadStrategy<K> loadStrategy = new PrepareLoadStrategy<>();
         addSchemas(loadStrategy);
         this.valueSchema = loadStrategy.build();
+        this.intKey = integral(keySchema);
+        this.denseSchema = dense(valueSchema);
+        this.intKeys = denseSchema != null && intKey != null && decodesInteger(intKey);
+    }
+
+    /** 按全0字节试读一次，确认key装箱后为Integer，与readKey的结果相等 */
+    private static boolean decodesInteger(NumberSchema.FixedNumber number) {
+        return number.readFrom(Unpooled.wrappedBuffer(new byte[number.size])) instanceof Integer;
+    }
+
+    /** 为true时调用方可用readKey与valueSchema(int)，放入Map时再装箱为Integer */
+    public boolean intKeys() {
+        return intKeys;
+    }
+
+    private static Schema[] dense(Map<?, Schema> valueSchema) {
+        int max = -1;
+        for (Object key : valueSchema.keySet()) {
+            if (!(key instanceof Integer))
+                return null;
+            int k = (Integer) key;
+            if (k < 0 || k >= DENSE_LIMIT)
+                return null;
+            max = Math.max(max, k);
+        }
+        Schema[] dense = new Schema[max + 1];
+        for (Map.Entry<?, Schema> entry : valueSchema.entrySet())
+            dense[(Integer) entry.getKey()] = entry.getValue();
+        return dense;
+    }
+
+    /** 查找key对应的Schema，key较小时按数组下标查找，不装箱 */
+    public Schema valueSchema(int key) {
+        Schema[] dense = this.denseSchema;
+        if (dense != null)
+            return key >= 0 && key < dense.length ? dense[key] : null;
+        return valueSchema.get(key);
+    }
+
+    public Schema valueSchema(Object key) {
+        Schema[] dense = this.denseSchema;
+        if (dense != null) {
+            if (key instanceof Integer)
+                return valueSchema((int) (Integer) key);
+            return null;
+        }
+        return valueSchema.get(key);
+    }
+
+    private static NumberSchema.FixedNumber integral(Schema schema) {
+        if (schema instanceof NumberSchema.FixedNumber && ((NumberSchema.FixedNumber) schema).integral())
+            return (NumberSchema.FixedNumber) schema;
+        return null;
     }
 
     protected abstract void addSchemas(PrepareLoadStrategy<K> schemaRegistry);
@@ -41,7 +112,7 @@ public abstract class MapSchema<K, V> extends BasicField<Entry<K, V>> {
             int writerIndex = input.writerIndex();
             input.writerIndex(input.readerIndex() + length);
 
-            Schema<V> schema = valueSchema.get(key);
+            Schema<V> schema = valueSchema(key);
             if (schema != null) {
                 V value = schema.readFrom(input, length);
                 result.setValue(value);
@@ -53,7 +124,7 @@ public abstract class MapSchema<K, V> extends BasicField<Entry<K, V>> {
             input.writerIndex(writerIndex);
 
         } else if (length < 0) {
-            Schema<V> schema = valueSchema.get(key);
+            Schema<V> schema = valueSchema(key);
             if (schema != null) {
                 V value = schema.readFrom(input);
                 result.setValue(value);
@@ -73,7 +144,7 @@ public abstract class MapSchema<K, V> extends BasicField<Entry<K, V>> {
         K key = entry.getKey();
         keySchema.writeTo(output, key);
 
-        Schema schema = valueSchema.get(key);
+        Schema schema = valueSchema(key);
         if (schema != null) {
             int begin = output.writerIndex();
             intTool.write(output, 0);
@@ -88,4 +159,123 @@ public abstract class MapSchema<K, V> extends BasicField<Entry<K, V>> {
             log.warn("未注册的信息:ID[{}], Value[{}]", key, entry.getValue());
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public int sizeOf(Entry<K, V> entry) {
+        if (entry == null)
+            return 0;
+        K key = entry.getKey();
+        int size = keySchema.sizeOf(key);
+
+        Schema schema = valueSchema(key);
+        if (schema != null) {
+            if (lengthUnit > 0)
+                size += lengthUnit;
+            Object value = entry.getValue();
+            if (value != null)
+                size += schema.sizeOf(value);
+        }
+        return size;
+    }
+
+    /** 以下方法供IntMapField及intKeys为true的字典域使用，key须为整数类型 */
+    public int readKey(ByteBuf input) {
+        NumberSchema.FixedNumber intKey = this.intKey;
+        if (intKey != null && input.readableBytes() >= intKey.size) {
+            int key = (int) intKey.getLong(input, input.readerIndex());
+            input.skipBytes(intKey.size);
+            return key;
+        }
+        return ((Number) keySchema.readFrom(input)).intValue();
+    }
+
+    public int readKey(ByteBuf input, Explain explain) {
+        return ((Number) keySchema.readFrom(input, explain)).intValue();
+    }
+
+    public void writeKey(ByteBuf output, int key) {
+        if (intKey != null)
+            intKey.writeLong(output, key);
+        else
+            keySchema.writeTo(output, (K) Integer.valueOf(key));
+    }
+
+    /** 读取input剩余的字节作为key对应的值，整数值不装箱 */
+    public void readValue(ByteBuf input, int key, IntMap map) {
+        readValue(input, key, map, false);
+    }
+
+    /** @param pooled 为true时嵌套消息从其对象池获取，供readPooled解码使用 */
+    public void readValue(ByteBuf input, int key, IntMap map, boolean pooled) {
+        Schema schema = valueSchema(key);
+        if (schema == null) {
+            byte[] bytes = new byte[input.readableBytes()];
+            input.readBytes(bytes);
+            map.put(key, bytes);
+            return;
+        }
+        NumberSchema.FixedNumber number = integral(schema);
+        if (number != null && input.readableBytes() >= number.size) {
+            map.putLong(key, number.getLong(input, input.readerIndex()));
+            input.skipBytes(number.size);
+            return;
+        }
+        Object value = readElement(schema, input, pooled);
+        if (value != null)
+            map.put(key, value);
+    }
+
+    public void readValue(ByteBuf input, int key, IntMap map, Explain explain) {
+        Schema schema = valueSchema(key);
+        if (schema == null) {
+            int begin = input.readerIndex();
+            byte[] bytes = new byte[input.readableBytes()];
+            input.readBytes(bytes);
+            explain.readField(begin, desc, ByteBufUtil.hexDump(bytes), input);
+            map.put(key, bytes);
+            return;
+        }
+        Object value = schema.readFrom(input, explain);
+        if (value == null)
+            return;
+        if (integral(schema) != null)
+            map.putLong(key, ((Number) value).longValue());
+        else
+            map.put(key, value);
+    }
+
+    /** 写入第i个键值对的长度与值，未注册的key返回false且不写入任何字节 */
+    public boolean writeEntry(ByteBuf output, IntMap map, int i) {
+        int key = map.keyAt(i);
+        Schema schema = valueSchema(key);
+        if (schema == null) {
+            log.warn("未注册的信息:ID[{}], VALUE[{}]", key, map.valueAt(i));
+            return false;
+        }
+        writeKey(output, key);
+        int begin = output.writerIndex();
+        intTool.write(output, 0);
+        NumberSchema.FixedNumber number = integral(schema);
+        if (number != null && map.isLongAt(i))
+            number.writeLong(output, map.longAt(i));
+        else
+            schema.writeTo(output, map.valueAt(i));
+        int length = output.writerIndex() - begin - lengthUnit;
+        intTool.set(output, begin, length);
+        return true;
+    }
+
+    public int sizeOfEntry(IntMap map, int i) {
+        int key = map.keyAt(i);
+        Schema schema = valueSchema(key);
+        if (schema == null)
+            return 0;
+        int size = intKey != null ? intKey.size : keySchema.sizeOf((K) Integer.valueOf(key));
+        if (lengthUnit > 0)
+            size += lengthUnit;
+        NumberSchema.FixedNumber number = integral(schema);
+        if (number != null && map.isLongAt(i))
+            return size + number.size;
+        return size + schema.sizeOf(map.valueAt(i));
+    }
+}
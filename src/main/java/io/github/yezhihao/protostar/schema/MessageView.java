@@ -0,0 +1,147 @@
+package io.github.yezhihao.protostar.schema;
+
+import io.github.yezhihao.protostar.field.BasicField;
+import io.github.yezhihao.protostar.field.ExpressionLengthField;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 消息的只读视图(Flyweight)，直接从ByteBuf按偏移量读取字段，不创建消息对象
+ * 定长前缀字段的偏移量在创建时计算，之后的字段在首次访问时逐个跳过计算
+ * 由RuntimeSchema.view创建，非线程安全，每个线程持有一个并通过wrap复用
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public class MessageView<T> {
+
+    protected final RuntimeSchema<T> schema;
+    protected final BasicField[] fields;
+    /** 各字段相对于起始位置的偏移量，fields.length处为消息结尾 */
+    protected final int[] offsets;
+    /** 与消息内容无关的偏移量个数 */
+    protected final int fixedCount;
+
+    protected ByteBuf input;
+    protected int base;
+    /** 当前消息已计算的偏移量个数 */
+    protected int known;
+
+    protected MessageView(RuntimeSchema<T> schema) {
+        BasicField[] fields = schema.fields;
+        int[] offsets = new int[fields.length + 1];
+        int i = 0;
+        for (; i < fields.length; i++) {
+            int size = fields[i].fixedSize();
+            if (size < 0)
+                break;
+            offsets[i + 1] = offsets[i] + size;
+        }
+        this.schema = schema;
+        this.fields = fields;
+        this.offsets = offsets;
+        this.fixedCount = i + 1;
+        this.known = fixedCount;
+    }
+
+    /** 包装从readerIndex开始的消息，不复制也不改变readerIndex */
+    public MessageView<T> wrap(ByteBuf input) {
+        this.input = input;
+        this.base = input.readerIndex();
+        this.known = fixedCount;
+        return this;
+    }
+
+    public ByteBuf input() {
+        return input;
+    }
+
+    /** 按Java字段名查找字段序号，用于之后的读取，不存在时返回-1 */
+    public int indexOf(String name) {
+        for (int i = 0; i < fields.length; i++)
+            if (fields[i].fieldName().equals(name))
+                return i;
+        return -1;
+    }
+
+    /** 字段在ByteBuf中的绝对位置 */
+    public int position(int field) {
+        return base + offset(field);
+    }
+
+    /** 字段相对于消息起始位置的偏移量 */
+    public int offset(int field) {
+        if (field >= known)
+            resolve(field);
+        return offsets[field];
+    }
+
+    /** 消息的字节数，用于原样转发 */
+    public int size() {
+        return offset(fields.length);
+    }
+
+    /** 读取数值字段，不创建包装对象 */
+    public long getLong(int field) {
+        BasicField f = fields[field];
+        if (f instanceof NumberSchema.FixedNumber)
+            return ((NumberSchema.FixedNumber) f).getLong(input, position(field));
+        return ((Number) get(field)).longValue();
+    }
+
+    public int getInt(int field) {
+        return (int) getLong(field);
+    }
+
+    public double getDouble(int field) {
+        BasicField f = fields[field];
+        if (f instanceof NumberSchema.FixedNumber)
+            return ((NumberSchema.FixedNumber) f).getDouble(input, position(field));
+        return ((Number) get(field)).doubleValue();
+    }
+
+    /** 解码单个字段，非数值字段使用该方法 */
+    public Object get(int field) {
+        int readerIndex = input.readerIndex();
+        try {
+            input.readerIndex(position(field));
+            return fields[field].readFrom(input);
+        } finally {
+            input.readerIndex(readerIndex);
+        }
+    }
+
+    public Object get(String name) {
+        int field = indexOf(name);
+        if (field < 0)
+            throw new IllegalArgumentException(schema.typeClass.getName() + "不存在字段:" + name);
+        return get(field);
+    }
+
+    /** 从上一个已知的偏移量开始逐个跳过，直到field */
+    private void resolve(int field) {
+        int readerIndex = input.readerIndex();
+        try {
+            input.readerIndex(base + offsets[known - 1]);
+            for (int i = known - 1; i < field; i++) {
+                BasicField f = fields[i];
+                if (f instanceof ExpressionLengthField)
+                    throw new UnsupportedOperationException("MessageView不支持长度表达式之后的字段 " + schema.typeClass.getName() + " " + f.fieldName());
+                if (!f.skip(input))
+                    f.readFrom(input);
+                offsets[i + 1] = input.readerIndex() - base;
+                known = i + 2;
+            }
+        } finally {
+            input.readerIndex(readerIndex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(48);
+        sb.append("{typeClass=").append(schema.typeClass.getSimpleName());
+        sb.append(", version=").append(schema.version);
+        sb.append(", fixedCount=").append(fixedCount - 1);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -24,6 +24,7 @@ public final class NumberPSchema {
     public static final Schema<Number> QWORD_LONG = new QWORD2Long();
     public static final Schema<Number> QWORD_DOUBLE = new QWORD2Double();
 
+    public static final Schema<Character> CHAR_LE = new CHARLE();
     public static final Schema<Number> WORD_SHORT_LE = new WORD2ShortLE();
     public static final Schema<Number> WORD_INT_LE = new WORD2IntLE();
     public static final Schema<Number> MEDIUM_INT_LE = new MEDIUM2IntLE();
@@ -35,211 +36,265 @@ public final class NumberPSchema {
 
     protected static class BOOL extends NumberSchema.BOOL {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setBoolean(obj, input.readBoolean());
+            boolean value = input.readBoolean();
+            setBoolean(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeBoolean(f.getBoolean(obj));
+            boolean value = getBoolean(obj);
+            output.writeBoolean(value);
         }
     }
 
     protected static class CHAR extends NumberSchema.CHAR {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setChar(obj, input.readChar());
+            char value = input.readChar();
+            setChar(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeChar(f.getChar(obj));
+            char value = getChar(obj);
+            output.writeChar(value);
         }
     }
 
     protected static class BYTE2Byte extends NumberSchema.BYTE2Byte {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setByte(obj, input.readByte());
+            byte value = input.readByte();
+            setByte(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeByte(f.getByte(obj));
+            byte value = getByte(obj);
+            output.writeByte(value);
         }
     }
 
     protected static class BYTE2Short extends NumberSchema.BYTE2Short {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setShort(obj, input.readUnsignedByte());
+            short value = input.readUnsignedByte();
+            setShort(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeByte(f.getShort(obj));
+            short value = getShort(obj);
+            output.writeByte(value);
         }
     }
 
     protected static class BYTE2Int extends NumberSchema.BYTE2Int {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setInt(obj, input.readUnsignedByte());
+            int value = input.readUnsignedByte();
+            setInt(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeByte(f.getInt(obj));
+            int value = getInt(obj);
+            output.writeByte(value);
         }
     }
 
     protected static class WORD2Short extends NumberSchema.WORD2Short {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setShort(obj, input.readShort());
+            short value = input.readShort();
+            setShort(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeShort(f.getShort(obj));
+            short value = getShort(obj);
+            output.writeShort(value);
         }
     }
 
     protected static class WORD2Int extends NumberSchema.WORD2Int {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setInt(obj, input.readUnsignedShort());
+            int value = input.readUnsignedShort();
+            setInt(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeShort(f.getInt(obj));
+            int value = getInt(obj);
+            output.writeShort(value);
         }
     }
 
     protected static class MEDIUM2Int extends NumberSchema.MEDIUM2Int {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setInt(obj, input.readMedium());
+            int value = input.readMedium();
+            setInt(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeMedium(f.getInt(obj));
+            int value = getInt(obj);
+            output.writeMedium(value);
         }
     }
 
     protected static class DWORD2Int extends NumberSchema.DWORD2Int {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setInt(obj, input.readInt());
+            int value = input.readInt();
+            setInt(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeInt(f.getInt(obj));
+            int value = getInt(obj);
+            output.writeInt(value);
         }
     }
 
     protected static class DWORD2Long extends NumberSchema.DWORD2Long {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setLong(obj, input.readUnsignedInt());
+            long value = input.readUnsignedInt();
+            setLong(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeInt((int) f.getLong(obj));
+            long value = getLong(obj);
+            output.writeInt((int) value);
         }
     }
 
     protected static class DWORD2Float extends NumberSchema.DWORD2Float {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setFloat(obj, input.readFloat());
+            float value = input.readFloat();
+            setFloat(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeFloat(f.getFloat(obj));
+            float value = getFloat(obj);
+            output.writeFloat(value);
         }
     }
 
     protected static class QWORD2Long extends NumberSchema.QWORD2Long {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setLong(obj, input.readLong());
+            long value = input.readLong();
+            setLong(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeLong(f.getLong(obj));
+            long value = getLong(obj);
+            output.writeLong(value);
         }
     }
 
     protected static class QWORD2Double extends NumberSchema.QWORD2Double {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setDouble(obj, input.readDouble());
+            double value = input.readDouble();
+            setDouble(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeDouble(f.getDouble(obj));
+            double value = getDouble(obj);
+            output.writeDouble(value);
+        }
+    }
+
+    protected static class CHARLE extends NumberSchema.CHARLE {
+        public void readAndSet(ByteBuf input, Object obj) throws Exception {
+            char value = (char) input.readShortLE();
+            setChar(obj, value);
+        }
+
+        public void getAndWrite(ByteBuf output, Object obj) throws Exception {
+            char value = getChar(obj);
+            output.writeShortLE(value);
         }
     }
 
     protected static class WORD2ShortLE extends NumberSchema.WORD2ShortLE {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setShort(obj, input.readShortLE());
+            short value = input.readShortLE();
+            setShort(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeShortLE(f.getShort(obj));
+            short value = getShort(obj);
+            output.writeShortLE(value);
         }
     }
 
     protected static class WORD2IntLE extends NumberSchema.WORD2IntLE {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setInt(obj, input.readUnsignedShortLE());
+            int value = input.readUnsignedShortLE();
+            setInt(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeShortLE(f.getInt(obj));
+            int value = getInt(obj);
+            output.writeShortLE(value);
         }
     }
 
     protected static class MEDIUM2IntLE extends NumberSchema.MEDIUM2IntLE {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setInt(obj, input.readMediumLE());
+            int value = input.readMediumLE();
+            setInt(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeMediumLE(f.getInt(obj));
+            int value = getInt(obj);
+            output.writeMediumLE(value);
         }
     }
 
     protected static class DWORD2IntLE extends NumberSchema.DWORD2IntLE {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setInt(obj, input.readIntLE());
+            int value = input.readIntLE();
+            setInt(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeIntLE(f.getInt(obj));
+            int value = getInt(obj);
+            output.writeIntLE(value);
         }
     }
 
     protected static class DWORD2LongLE extends NumberSchema.DWORD2LongLE {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setLong(obj, input.readUnsignedIntLE());
+            long value = input.readUnsignedIntLE();
+            setLong(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeIntLE((int) f.getLong(obj));
+            long value = getLong(obj);
+            output.writeIntLE((int) value);
         }
     }
 
     protected static class DWORD2FloatLE extends NumberSchema.DWORD2FloatLE {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setFloat(obj, input.readFloatLE());
+            float value = input.readFloatLE();
+            setFloat(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeFloatLE(f.getFloat(obj));
+            float value = getFloat(obj);
+            output.writeFloatLE(value);
         }
     }
 
     protected static class QWORD2LongLE extends NumberSchema.QWORD2LongLE {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setLong(obj, input.readLongLE());
+            long value = input.readLongLE();
+            setLong(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeLongLE(f.getLong(obj));
+            long value = getLong(obj);
+            output.writeLongLE(value);
         }
     }
 
     protected static class QWORD2DoubleLE extends NumberSchema.QWORD2DoubleLE {
         public void readAndSet(ByteBuf input, Object obj) throws Exception {
-            f.setDouble(obj, input.readDoubleLE());
+            double value = input.readDoubleLE();
+            setDouble(obj, value);
         }
 
         public void getAndWrite(ByteBuf output, Object obj) throws Exception {
-            output.writeDoubleLE(f.getDouble(obj));
+            double value = getDouble(obj);
+            output.writeDoubleLE(value);
         }
     }
 }
\ No newline at end of file
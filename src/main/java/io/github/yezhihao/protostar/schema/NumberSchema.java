@@ -25,6 +25,7 @@ public final class NumberSchema {
     public static final Schema<Number> QWORD_LONG = new QWORD2Long();
     public static final Schema<Number> QWORD_DOUBLE = new QWORD2Double();
 
+    public static final Schema<Character> CHAR_LE = new CHARLE();
     public static final Schema<Number> WORD_SHORT_LE = new WORD2ShortLE();
     public static final Schema<Number> WORD_INT_LE = new WORD2IntLE();
     public static final Schema<Number> MEDIUM_INT_LE = new MEDIUM2IntLE();
@@ -34,213 +35,556 @@ public final class NumberSchema {
     public static final Schema<Number> QWORD_LONG_LE = new QWORD2LongLE();
     public static final Schema<Number> QWORD_DOUBLE_LE = new QWORD2DoubleLE();
 
-    protected static class BOOL extends BasicField<Boolean> {
+    /** 定长数值，包装类型为null时不写入，基本类型的长度固定 */
+    protected abstract static class FixedNumber<T> extends BasicField<T> {
+        protected final int size;
+
+        protected FixedNumber(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int sizeOf(T value) {
+            return value == null ? 0 : size;
+        }
+
+        @Override
+        public int fixedSize() {
+            return f != null && f.getType().isPrimitive() ? size : -1;
+        }
+
+        @Override
+        public boolean skip(ByteBuf input) {
+            input.skipBytes(Math.min(size, input.readableBytes()));
+            return true;
+        }
+
+        /** 按绝对位置读取，不改变readerIndex，默认通过readFrom读取并装箱，整数类型应覆盖该方法 */
+        public long getLong(ByteBuf input, int index) {
+            Object value = readFrom(input.slice(index, size));
+            if (value instanceof Number)
+                return ((Number) value).longValue();
+            if (value instanceof Boolean)
+                return (Boolean) value ? 1 : 0;
+            if (value instanceof Character)
+                return (Character) value;
+            return 0;
+        }
+
+        /** 按绝对位置读取，不改变readerIndex，默认通过readFrom读取并装箱，浮点类型应覆盖该方法 */
+        public double getDouble(ByteBuf input, int index) {
+            Object value = readFrom(input.slice(index, size));
+            if (value instanceof Number)
+                return ((Number) value).doubleValue();
+            return getLong(input, index);
+        }
+
+        /** 值为整数，可通过getLong与writeLong读写而不装箱 */
+        public boolean integral() {
+            return true;
+        }
+
+        /** 按长度截取低位字节写入，有符号与无符号的写法相同，小端类型须覆盖该方法 */
+        public void writeLong(ByteBuf output, long value) {
+            switch (size) {
+                case 1:
+                    output.writeByte((int) value);
+                    break;
+                case 2:
+                    output.writeShort((int) value);
+                    break;
+                case 3:
+                    output.writeMedium((int) value);
+                    break;
+                case 4:
+                    output.writeInt((int) value);
+                    break;
+                default:
+                    output.writeLong(value);
+            }
+        }
+    }
+
+    protected static class BOOL extends FixedNumber<Boolean> {
+        protected BOOL() {
+            super(1);
+        }
+
         public Boolean readFrom(ByteBuf input) {
             return input.readBoolean();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getBoolean(index) ? 1 : 0;
+        }
+
         public void writeTo(ByteBuf output, Boolean value) {
             if (value != null) output.writeBoolean(value);
         }
+
+        @Override
+        public boolean integral() {
+            return false;
+        }
     }
 
-    protected static class CHAR extends BasicField<Character> {
+    protected static class CHAR extends FixedNumber<Character> {
+        protected CHAR() {
+            super(2);
+        }
+
         public Character readFrom(ByteBuf input) {
             return input.readChar();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getChar(index);
+        }
+
         public void writeTo(ByteBuf output, Character value) {
             if (value != null) output.writeChar(value);
         }
+
+        @Override
+        public boolean integral() {
+            return false;
+        }
     }
 
-    protected static class BYTE2Byte extends BasicField<Number> {
+    protected static class BYTE2Byte extends FixedNumber<Number> {
+        protected BYTE2Byte() {
+            super(1);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readByte();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getByte(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeByte(value.byteValue());
         }
     }
 
-    protected static class BYTE2Short extends BasicField<Number> {
+    protected static class BYTE2Short extends FixedNumber<Number> {
+        protected BYTE2Short() {
+            super(1);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readUnsignedByte();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getUnsignedByte(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeByte(value.byteValue());
         }
     }
 
-    protected static class BYTE2Int extends BasicField<Number> {
+    protected static class BYTE2Int extends FixedNumber<Number> {
+        protected BYTE2Int() {
+            super(1);
+        }
+
         public Number readFrom(ByteBuf input) {
             return (int) input.readUnsignedByte();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getUnsignedByte(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeByte(value.byteValue());
         }
     }
 
-    protected static class WORD2Short extends BasicField<Number> {
+    protected static class WORD2Short extends FixedNumber<Number> {
+        protected WORD2Short() {
+            super(2);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readShort();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getShort(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeShort(value.shortValue());
         }
     }
 
-    protected static class WORD2Int extends BasicField<Number> {
+    protected static class WORD2Int extends FixedNumber<Number> {
+        protected WORD2Int() {
+            super(2);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readUnsignedShort();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getUnsignedShort(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeShort(value.shortValue());
         }
     }
 
-    protected static class MEDIUM2Int extends BasicField<Number> {
+    protected static class MEDIUM2Int extends FixedNumber<Number> {
+        protected MEDIUM2Int() {
+            super(3);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readMedium();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getMedium(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeMedium(value.intValue());
         }
     }
 
-    protected static class DWORD2Int extends BasicField<Number> {
+    protected static class DWORD2Int extends FixedNumber<Number> {
+        protected DWORD2Int() {
+            super(4);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readInt();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getInt(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeInt(value.intValue());
         }
     }
 
-    protected static class DWORD2Long extends BasicField<Number> {
+    protected static class DWORD2Long extends FixedNumber<Number> {
+        protected DWORD2Long() {
+            super(4);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readUnsignedInt();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getUnsignedInt(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeInt(value.intValue());
         }
     }
 
-    protected static class DWORD2Float extends BasicField<Number> {
+    protected static class DWORD2Float extends FixedNumber<Number> {
+        protected DWORD2Float() {
+            super(4);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readFloat();
         }
 
+        @Override
+        public double getDouble(ByteBuf input, int index) {
+            return input.getFloat(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeFloat(value.floatValue());
         }
+
+        @Override
+        public boolean integral() {
+            return false;
+        }
     }
 
-    protected static class QWORD2Long extends BasicField<Number> {
+    protected static class QWORD2Long extends FixedNumber<Number> {
+        protected QWORD2Long() {
+            super(8);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readLong();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getLong(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeLong(value.longValue());
         }
     }
 
-    protected static class QWORD2Double extends BasicField<Number> {
+    protected static class QWORD2Double extends FixedNumber<Number> {
+        protected QWORD2Double() {
+            super(8);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readDouble();
         }
 
+        @Override
+        public double getDouble(ByteBuf input, int index) {
+            return input.getDouble(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeDouble(value.doubleValue());
         }
+
+        @Override
+        public boolean integral() {
+            return false;
+        }
     }
 
-    protected static class WORD2ShortLE extends BasicField<Number> {
+    protected static class CHARLE extends FixedNumber<Character> {
+        protected CHARLE() {
+            super(2);
+        }
+
+        public Character readFrom(ByteBuf input) {
+            return (char) input.readShortLE();
+        }
+
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return (char) input.getShortLE(index);
+        }
+
+        public void writeTo(ByteBuf output, Character value) {
+            if (value != null) output.writeShortLE(value);
+        }
+
+        @Override
+        public boolean integral() {
+            return false;
+        }
+    }
+
+    protected static class WORD2ShortLE extends FixedNumber<Number> {
+        protected WORD2ShortLE() {
+            super(2);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readShortLE();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getShortLE(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeShortLE(value.shortValue());
         }
+
+        @Override
+        public void writeLong(ByteBuf output, long value) {
+            output.writeShortLE((int) value);
+        }
     }
 
-    protected static class WORD2IntLE extends BasicField<Number> {
+    protected static class WORD2IntLE extends FixedNumber<Number> {
+        protected WORD2IntLE() {
+            super(2);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readUnsignedShortLE();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getUnsignedShortLE(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeShortLE(value.shortValue());
         }
+
+        @Override
+        public void writeLong(ByteBuf output, long value) {
+            output.writeShortLE((int) value);
+        }
     }
 
-    protected static class MEDIUM2IntLE extends BasicField<Number> {
+    protected static class MEDIUM2IntLE extends FixedNumber<Number> {
+        protected MEDIUM2IntLE() {
+            super(3);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readMediumLE();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getMediumLE(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeMediumLE(value.intValue());
         }
+
+        @Override
+        public void writeLong(ByteBuf output, long value) {
+            output.writeMediumLE((int) value);
+        }
     }
 
-    protected static class DWORD2IntLE extends BasicField<Number> {
+    protected static class DWORD2IntLE extends FixedNumber<Number> {
+        protected DWORD2IntLE() {
+            super(4);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readIntLE();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getIntLE(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeIntLE(value.intValue());
         }
+
+        @Override
+        public void writeLong(ByteBuf output, long value) {
+            output.writeIntLE((int) value);
+        }
     }
 
-    protected static class DWORD2LongLE extends BasicField<Number> {
+    protected static class DWORD2LongLE extends FixedNumber<Number> {
+        protected DWORD2LongLE() {
+            super(4);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readUnsignedIntLE();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getUnsignedIntLE(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeIntLE(value.intValue());
         }
+
+        @Override
+        public void writeLong(ByteBuf output, long value) {
+            output.writeIntLE((int) value);
+        }
     }
 
-    protected static class DWORD2FloatLE extends BasicField<Number> {
+    protected static class DWORD2FloatLE extends FixedNumber<Number> {
+        protected DWORD2FloatLE() {
+            super(4);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readFloatLE();
         }
 
+        @Override
+        public double getDouble(ByteBuf input, int index) {
+            return input.getFloatLE(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeFloatLE(value.floatValue());
         }
+
+        @Override
+        public boolean integral() {
+            return false;
+        }
     }
 
-    protected static class QWORD2LongLE extends BasicField<Number> {
+    protected static class QWORD2LongLE extends FixedNumber<Number> {
+        protected QWORD2LongLE() {
+            super(8);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readLongLE();
         }
 
+        @Override
+        public long getLong(ByteBuf input, int index) {
+            return input.getLongLE(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeLongLE(value.longValue());
         }
+
+        @Override
+        public void writeLong(ByteBuf output, long value) {
+            output.writeLongLE(value);
+        }
     }
 
-    protected static class QWORD2DoubleLE extends BasicField<Number> {
+    protected static class QWORD2DoubleLE extends FixedNumber<Number> {
+        protected QWORD2DoubleLE() {
+            super(8);
+        }
+
         public Number readFrom(ByteBuf input) {
             return input.readDoubleLE();
         }
 
+        @Override
+        public double getDouble(ByteBuf input, int index) {
+            return input.getDoubleLE(index);
+        }
+
         public void writeTo(ByteBuf output, Number value) {
             if (value != null) output.writeDoubleLE(value.doubleValue());
         }
+
+        @Override
+        public boolean integral() {
+            return false;
+        }
     }
 }
\ No newline at end of file
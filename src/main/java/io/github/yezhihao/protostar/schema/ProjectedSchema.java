@@ -0,0 +1,129 @@
+package io.github.yezhihao.protostar.schema;
+
+import io.github.yezhihao.protostar.field.BasicField;
+import io.github.yezhihao.protostar.field.ExpressionLengthField;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 只读取部分字段的消息结构，由RuntimeSchema.project创建，创建后可复用
+ * 未选中的字段能按长度跳过时不解码，无法跳过的照常解码；最后一个选中字段之后的字节不读取
+ * 只用于解码，不实现Schema，写入使用原RuntimeSchema
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public class ProjectedSchema<T> {
+
+    protected final RuntimeSchema<T> schema;
+    /** 从第一个字段到最后一个选中字段 */
+    protected final BasicField[] fields;
+    /** 对应fields，false表示可跳过 */
+    protected final boolean[] selected;
+
+    protected ProjectedSchema(RuntimeSchema<T> schema, String... names) {
+        BasicField[] all = schema.fields;
+        boolean[] selected = new boolean[all.length];
+        int end = 0;
+        for (String name : names) {
+            int i = indexOf(all, name);
+            if (i < 0)
+                throw new IllegalArgumentException(schema.typeClass.getName() + "不存在字段:" + name);
+            selected[i] = true;
+            end = Math.max(end, i + 1);
+        }
+
+        //长度表达式依赖之前的字段值，其之前的字段全部读取
+        for (int i = end - 1; i >= 0; i--) {
+            if (all[i] instanceof ExpressionLengthField) {
+                for (int j = 0; j < i; j++)
+                    selected[j] = true;
+                break;
+            }
+        }
+
+        this.schema = schema;
+        this.fields = new BasicField[end];
+        this.selected = new boolean[end];
+        System.arraycopy(all, 0, this.fields, 0, end);
+        System.arraycopy(selected, 0, this.selected, 0, end);
+    }
+
+    private static int indexOf(BasicField[] fields, String name) {
+        for (int i = 0; i < fields.length; i++)
+            if (fields[i].fieldName().equals(name))
+                return i;
+        return -1;
+    }
+
+    public T mergeFrom(ByteBuf input, T result) {
+        if (schema.canonical != null)
+            throw new UnsupportedOperationException("record不可修改 " + schema.typeClass.getName());
+        int i = 0;
+        try {
+            for (; i < fields.length; i++) {
+                if (!input.isReadable())
+                    break;
+                BasicField field = fields[i];
+                if (selected[i] || !field.skip(input))
+                    field.readAndSet(input, result);
+            }
+            return result;
+        } catch (Exception e) {
+            throw new RuntimeException("Read failed " + i + " " + schema.typeClass.getName() + " " + fields[i].fieldName(), e);
+        }
+    }
+
+    public T readFrom(ByteBuf input) {
+        if (!input.isReadable())
+            return null;
+        if (schema.canonical != null)
+            return readRecord(input);
+        return mergeFrom(input, schema.newInstance());
+    }
+
+    /** record读取选中的组件后调用规范构造器，未选中的组件为默认值 */
+    private T readRecord(ByteBuf input) {
+        Object[] args = schema.components.clone();
+        int i = 0;
+        try {
+            for (; i < fields.length; i++) {
+                if (!input.isReadable())
+                    break;
+                BasicField field = fields[i];
+                if (selected[i]) {
+                    Object value = field.readFrom(input);
+                    if (value != null)
+                        args[schema.componentIndex[i]] = RuntimeSchema.component(field, value);
+                } else if (!field.skip(input)) {
+                    field.readFrom(input);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Read failed " + i + " " + schema.typeClass.getName() + " " + fields[i].fieldName(), e);
+        }
+        return schema.newRecord(args);
+    }
+
+    public RuntimeSchema<T> schema() {
+        return schema;
+    }
+
+    public int length() {
+        return schema.length();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(64);
+        sb.append("{typeClass=").append(schema.typeClass.getSimpleName());
+        sb.append(", version=").append(schema.version);
+        sb.append(", fields=[");
+        for (int i = 0; i < fields.length; i++) {
+            if (selected[i])
+                sb.append(fields[i].fieldName()).append(',');
+        }
+        if (sb.charAt(sb.length() - 1) == ',')
+            sb.setLength(sb.length() - 1);
+        sb.append("]}");
+        return sb.toString();
+    }
+}
@@ -1,11 +1,25 @@
 package io.github.yezhihao.protostar.schema;
 
+import io.github.yezhihao.protostar.AccessMode;
 import io.github.yezhihao.protostar.Schema;
 import io.github.yezhihao.protostar.field.BasicField;
+import io.github.yezhihao.protostar.util.AdaptiveSize;
 import io.github.yezhihao.protostar.util.Explain;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.lang.invoke.*;
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.Supplier;
 
 /**
  * 运行时根据Class生成的消息结构，用于序列化对象
@@ -14,13 +28,55 @@ import java.lang.reflect.Constructor;
  */
 public class RuntimeSchema<T> implements Schema<T> {
 
+    private static final Logger log = LoggerFactory.getLogger(RuntimeSchema.class.getSimpleName());
+
+    /** 每个线程缓存的可复用对象数量上限 */
+    private static final int POOL_SIZE = 16;
+
+    /** 当前线程readPooled的嵌套层数 */
+    private static final FastThreadLocal<int[]> POOLING = new FastThreadLocal<>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
     protected int version;
     protected int length;
     protected Class<T> typeClass;
     protected BasicField[] fields;
     protected Constructor<T> constructor;
+    /** 调用无参构造器的Supplier，AccessMode为REFLECT或生成失败时为null */
+    protected Supplier<T> instantiator;
+    /** record的规范构造器，参数展开为Object[]，非record时为null */
+    protected MethodHandle canonical;
+    /** record各组件的默认值，基本类型为0或false */
+    protected Object[] components;
+    /** fields[i]对应的record组件位置 */
+    protected int[] componentIndex;
+    protected Accessor accessor;
+    /** 固定长度字段的字节数之和 */
+    protected int fixedSize;
+    /** 长度与值相关的字段，全部字段固定时为空数组 */
+    protected BasicField[] variableFields;
+    /** 解码结果为retainedSlice的字段，release时释放 */
+    protected BasicField[] retainedFields;
+    /** encode分配的初始容量，按最近编码的实际长度调整 */
+    protected final AdaptiveSize encodeSize;
+    /** recycle回收的对象，按线程隔离 */
+    protected final FastThreadLocal<ArrayDeque<T>> pool = new FastThreadLocal<>() {
+        @Override
+        protected ArrayDeque<T> initialValue() {
+            return new ArrayDeque<>(POOL_SIZE);
+        }
+    };
 
     public RuntimeSchema(Class<T> typeClass, int version, BasicField[] fields) {
+        this(typeClass, version, fields, AccessMode.get());
+    }
+
+    /** mode须与构建fields时使用的一致 */
+    public RuntimeSchema(Class<T> typeClass, int version, BasicField[] fields, AccessMode mode) {
         this.typeClass = typeClass;
         this.version = version;
         this.fields = fields;
@@ -28,14 +84,133 @@ public class RuntimeSchema<T> implements Schema<T> {
         for (BasicField field : fields)
             length += field.length();
         this.length = length;
+
+        int fixedSize = 0;
+        int variableCount = 0;
+        BasicField[] variableFields = new BasicField[fields.length];
+        for (BasicField field : fields) {
+            int size = field.fixedSize();
+            if (size < 0)
+                variableFields[variableCount++] = field;
+            else
+                fixedSize += size;
+        }
+        this.fixedSize = fixedSize;
+        this.variableFields = Arrays.copyOf(variableFields, variableCount);
+        this.encodeSize = new AdaptiveSize(variableCount == 0 ? fixedSize : Math.max(length, fixedSize));
+        this.retainedFields = Arrays.stream(fields).filter(BasicField::isRetained).toArray(BasicField[]::new);
+        if (typeClass.isRecord()) {
+            initRecord();
+            return;
+        }
         try {
             this.constructor = typeClass.getDeclaredConstructor((Class[]) null);
+            //与Supplier一样支持非public的构造器，无法设置时在newInstance抛出异常
+            this.constructor.trySetAccessible();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+        if (mode != AccessMode.REFLECT)
+            this.instantiator = instantiator(typeClass);
+        if (mode == AccessMode.GENERATED)
+            this.accessor = AccessorGenerator.generate(typeClass, fields);
+    }
+
+    /** record没有无参构造器且字段不可变，读取到数组后调用规范构造器，不生成Accessor */
+    private void initRecord() {
+        RecordComponent[] recordComponents = typeClass.getRecordComponents();
+        int length = recordComponents.length;
+        Class<?>[] types = new Class[length];
+        Object[] components = new Object[length];
+        for (int i = 0; i < length; i++) {
+            types[i] = recordComponents[i].getType();
+            if (types[i].isPrimitive())
+                components[i] = Array.get(Array.newInstance(types[i], 1), 0);
+        }
+
+        int[] componentIndex = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            String name = fields[i].fieldName();
+            int j = 0;
+            while (j < length && !recordComponents[j].getName().equals(name))
+                j++;
+            if (j == length)
+                throw new RuntimeException("record组件不存在 " + typeClass.getName() + " " + name);
+            componentIndex[i] = j;
+        }
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(typeClass, MethodHandles.lookup());
+            MethodHandle constructor = lookup.findConstructor(typeClass, MethodType.methodType(void.class, types));
+            this.canonical = constructor.asSpreader(Object[].class, length).asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+        this.components = components;
+        this.componentIndex = componentIndex;
+    }
+
+    private T readRecord(ByteBuf input, Explain explain) {
+        Object[] args = components.clone();
+        int i = 0;
+        try {
+            for (; i < fields.length; i++) {
+                Object value = explain == null ? fields[i].readFrom(input) : fields[i].readFrom(input, explain);
+                if (value != null)
+                    args[componentIndex[i]] = component(fields[i], value);
+                if (!input.isReadable())
+                    break;
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Read failed " + i + " " + typeClass.getName() + " " + fields[i].fieldName(), e);
+        }
+        return newRecord(args);
+    }
+
+    /**
+     * record的字段release后不能置null，retainedSlice在非池化的ByteBuf上与原ByteBuf共用计数
+     * 包装为单独计数的CompositeByteBuf，重复release只作用于包装，不会释放调用方的ByteBuf
+     */
+    static Object component(BasicField field, Object value) {
+        if (field.isRetained())
+            return ByteBufAllocator.DEFAULT.compositeBuffer(1).addComponent(true, (ByteBuf) value);
+        return value;
+    }
+
+    /** 以组件数组调用record的规范构造器 */
+    T newRecord(Object[] args) {
+        try {
+            return (T) canonical.invokeExact(args);
+        } catch (Throwable e) {
+            throw new RuntimeException("newInstance failed " + typeClass.getName(), e);
+        }
+    }
+
+    /** 通过LambdaMetafactory生成Supplier，与lambda表达式调用构造器的开销相同 */
+    private static <T> Supplier<T> instantiator(Class<T> typeClass) {
+        //抽象类生成的Supplier调用时抛出InstantiationError，交由反射抛出RuntimeException
+        if (Modifier.isAbstract(typeClass.getModifiers()))
+            return null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(typeClass, MethodHandles.lookup());
+            MethodHandle constructor = lookup.findConstructor(typeClass, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class), MethodType.methodType(Object.class), constructor, MethodType.methodType(typeClass));
+            return (Supplier<T>) site.getTarget().invokeExact();
+        } catch (Exception e) {
+            log.warn("生成Supplier失败，使用反射创建:{} {}", typeClass.getName(), e.toString());
+            return null;
+        } catch (Throwable e) {
+            //invokeExact声明抛出Throwable，Exception之外只剩Error
+            throw (Error) e;
+        }
     }
 
     public T newInstance() {
+        if (instantiator != null)
+            return instantiator.get();
+        if (canonical != null)
+            throw new UnsupportedOperationException("record只能通过readFrom创建 " + typeClass.getName());
         try {
             return constructor.newInstance((Object[]) null);
         } catch (Exception e) {
@@ -44,6 +219,10 @@ public class RuntimeSchema<T> implements Schema<T> {
     }
 
     public T mergeFrom(ByteBuf input, T result) {
+        if (canonical != null)
+            throw new UnsupportedOperationException("record不可修改 " + typeClass.getName());
+        if (accessor != null)
+            return accessorMergeFrom(input, result);
         int i = 0;
         try {
             for (; i < fields.length; i++)
@@ -57,6 +236,10 @@ public class RuntimeSchema<T> implements Schema<T> {
     }
 
     public T mergeFrom(ByteBuf input, T result, Explain explain) {
+        if (canonical != null)
+            throw new UnsupportedOperationException("record不可修改 " + typeClass.getName());
+        if (explain == null && accessor != null)
+            return accessorMergeFrom(input, result);
         int i = 0;
         try {
             if (explain == null) {
@@ -79,9 +262,13 @@ public class RuntimeSchema<T> implements Schema<T> {
     public T readFrom(ByteBuf input) {
         if (!input.isReadable())
             return null;
+        if (canonical != null)
+            return readRecord(input, null);
+        if (accessor != null)
+            return accessorMergeFrom(input, newInstance());
         int i = 0;
         try {
-            T result = constructor.newInstance((Object[]) null);
+            T result = newInstance();
             for (; i < fields.length; i++) {
                 fields[i].readAndSet(input, result);
                 if (!input.isReadable())
@@ -96,9 +283,13 @@ public class RuntimeSchema<T> implements Schema<T> {
     public T readFrom(ByteBuf input, Explain explain) {
         if (!input.isReadable())
             return null;
+        if (canonical != null)
+            return readRecord(input, explain);
+        if (explain == null && accessor != null)
+            return accessorMergeFrom(input, newInstance());
         int i = 0;
         try {
-            T result = constructor.newInstance((Object[]) null);
+            T result = newInstance();
             if (explain == null) {
                 for (; i < fields.length; i++) {
                     fields[i].readAndSet(input, result);
@@ -120,6 +311,10 @@ public class RuntimeSchema<T> implements Schema<T> {
 
     @Override
     public void writeTo(ByteBuf output, T message) {
+        if (accessor != null) {
+            accessorWriteTo(output, message);
+            return;
+        }
         int i = 0;
         try {
             for (; i < fields.length; i++)
@@ -131,6 +326,10 @@ public class RuntimeSchema<T> implements Schema<T> {
 
     @Override
     public void writeTo(ByteBuf output, T message, Explain explain) {
+        if (explain == null && accessor != null) {
+            accessorWriteTo(output, message);
+            return;
+        }
         int i = 0;
         try {
             if (explain == null)
@@ -144,6 +343,205 @@ public class RuntimeSchema<T> implements Schema<T> {
         }
     }
 
+    /** 从默认的池化分配器申请直接内存编码，调用方负责release */
+    public ByteBuf encode(T message) {
+        return encode(message, ByteBufAllocator.DEFAULT);
+    }
+
+    /** 定长消息按固定长度分配，其他按最近编码的长度预测容量，避免扩容复制 */
+    public ByteBuf encode(T message, ByteBufAllocator allocator) {
+        boolean fixed = variableFields.length == 0;
+        ByteBuf output = allocator.buffer(fixed ? fixedSize : encodeSize.guess());
+        try {
+            writeTo(output, message);
+        } catch (RuntimeException e) {
+            output.release();
+            throw e;
+        }
+        if (!fixed)
+            encodeSize.record(output.readableBytes());
+        return output;
+    }
+
+    /** 从默认的分配器申请CompositeByteBuf编码，调用方负责release */
+    public CompositeByteBuf encodeComposite(T message) {
+        return encodeComposite(message, ByteBufAllocator.DEFAULT);
+    }
+
+    /**
+     * 编码到CompositeByteBuf，大块的byte[]、ByteBuf、ByteBuffer字段作为组件引用，不复制
+     * 引用的byte[]与ByteBuffer在写出之前不能修改，ByteBuf字段被retain并由返回值负责释放
+     * 与encode共用长度预测，记录的长度包含引用的组件，预测偏大时多出的容量在追加组件前截去
+     */
+    public CompositeByteBuf encodeComposite(T message, ByteBufAllocator allocator) {
+        boolean fixed = variableFields.length == 0;
+        CompositeByteBuf output = allocator.compositeBuffer(Integer.MAX_VALUE);
+        try {
+            output.capacity(fixed ? fixedSize : encodeSize.guess());
+            writeTo(output, message);
+            output.capacity(output.writerIndex());
+        } catch (RuntimeException e) {
+            output.release();
+            throw e;
+        }
+        if (!fixed)
+            encodeSize.record(output.readableBytes());
+        return output;
+    }
+
+    /**
+     * 优先复用当前线程recycle回收的对象，使用完毕后调用recycle归还
+     * 解码期间集合与字典域同样复用回收的容器和嵌套消息，readFrom不受影响，总是创建新对象
+     */
+    public T readPooled(ByteBuf input) {
+        if (!input.isReadable())
+            return null;
+        if (canonical != null)
+            return readRecord(input, null);
+        T result = pool.get().pollFirst();
+        if (result == null)
+            result = newInstance();
+        int[] depth = POOLING.get();
+        depth[0]++;
+        try {
+            return mergeFrom(input, result);
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    public T readPooled(ByteBuf input, int length) {
+        int readerLength = input.readerIndex() + length;
+        int writerIndex = input.writerIndex();
+        input.writerIndex(readerLength);
+        T value = readPooled(input);
+        input.setIndex(readerLength, writerIndex);
+        return value;
+    }
+
+    /** 当前线程是否正在readPooled解码，供集合与字典域判断能否复用回收的对象 */
+    public static boolean pooling() {
+        return POOLING.get()[0] > 0;
+    }
+
+    /** 重置后回收到当前线程，集合与字典中的嵌套消息一并回收，调用后不能再持有该对象及其元素 */
+    public void recycle(T message) {
+        if (message == null || canonical != null || message.getClass() != typeClass)
+            return;
+        reset(message);
+        ArrayDeque<T> pool = this.pool.get();
+        if (pool.size() < POOL_SIZE)
+            pool.offerFirst(message);
+    }
+
+    /** 所有字段重置为默认值，解码时创建的ArrayList、HashMap、TreeMap回收其中的嵌套消息并清空后留给当前线程下次readPooled使用 */
+    public void reset(T message) {
+        if (retainedFields.length > 0)
+            release(message);
+        if (accessor != null) {
+            try {
+                accessor.reset(message);
+                return;
+            } catch (Exception e) {
+                throw new RuntimeException("Reset failed " + typeClass.getName(), e);
+            }
+        }
+        int i = 0;
+        try {
+            for (; i < fields.length; i++)
+                fields[i].reset(message);
+        } catch (Exception e) {
+            throw new RuntimeException("Reset failed " + i + " " + typeClass.getName() + " " + fields[i].fieldName(), e);
+        }
+    }
+
+    /** 释放retained字段持有的ByteBuf，消息使用完毕后调用，recycle时自动调用，record的字段不会置为null，重复调用时跳过已释放的字段 */
+    public void release(T message) {
+        if (message == null)
+            return;
+        int i = 0;
+        try {
+            for (; i < retainedFields.length; i++)
+                retainedFields[i].release(message);
+        } catch (Exception e) {
+            throw new RuntimeException("Release failed " + typeClass.getName() + " " + retainedFields[i].fieldName(), e);
+        }
+    }
+
+    /** 写入message所需的精确字节数，固定部分在构建时已计算 */
+    @Override
+    public int sizeOf(T message) {
+        if (message == null)
+            return 0;
+        int size = fixedSize;
+        int i = 0;
+        try {
+            for (; i < variableFields.length; i++)
+                size += variableFields[i].getAndSizeOf(message);
+            return size;
+        } catch (Exception e) {
+            throw new RuntimeException("Size failed " + i + " " + typeClass.getName() + " " + variableFields[i].fieldName(), e);
+        }
+    }
+
+    /** 所有字段均为固定长度时返回总字节数，否则返回-1 */
+    @Override
+    public int fixedSize() {
+        return variableFields.length == 0 ? fixedSize : -1;
+    }
+
+    /** 只读取指定字段(按Java字段名)的视图，用于只关心少数字段的场景，如路由转发；视图只能解码，写入仍使用当前RuntimeSchema */
+    public ProjectedSchema<T> project(String... names) {
+        return new ProjectedSchema<>(this, names);
+    }
+
+    /** 不创建消息对象、直接从ByteBuf读取字段的视图，每次调用返回新实例 */
+    public MessageView<T> view() {
+        return new MessageView<>(this);
+    }
+
+    /** 生成代码记录了失败字段的下标，异常信息与反射路径一致 */
+    private T accessorMergeFrom(ByteBuf input, T result) {
+        int readerIndex = input.readerIndex();
+        try {
+            accessor.mergeFrom(input, result);
+            return result;
+        } catch (Accessor.FieldException e) {
+            int i = e.index();
+            throw new RuntimeException("Read failed " + i + " " + typeClass.getName() + " " + fields[i].fieldName(), e.getCause());
+        } catch (LinkageError e) {
+            disableAccessor(e);
+            input.readerIndex(readerIndex);
+            return mergeFrom(input, result);
+        } catch (Exception e) {
+            throw new RuntimeException("Read failed " + typeClass.getName(), e);
+        }
+    }
+
+    private void accessorWriteTo(ByteBuf output, T message) {
+        int writerIndex = output.writerIndex();
+        try {
+            accessor.writeTo(output, message);
+        } catch (Accessor.FieldException e) {
+            int i = e.index();
+            throw new RuntimeException("Write failed " + i + " " + typeClass.getName() + " " + fields[i].fieldName(), e.getCause());
+        } catch (LinkageError e) {
+            disableAccessor(e);
+            output.writerIndex(writerIndex);
+            if (output instanceof CompositeByteBuf)
+                output.capacity(writerIndex);
+            writeTo(output, message);
+        } catch (Exception e) {
+            throw new RuntimeException("Write failed " + typeClass.getName(), e);
+        }
+    }
+
+    /** 隐藏类在首次执行时才解析字段引用，解析失败(如字段不可访问)时改用反射，从头重新读写 */
+    private void disableAccessor(LinkageError e) {
+        log.warn("Accessor不可用，使用反射读写:{} {}", typeClass.getName(), e.toString());
+        accessor = null;
+    }
+
     public Class<T> typeClass() {
         return typeClass;
     }
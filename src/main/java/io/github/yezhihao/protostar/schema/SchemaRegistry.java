@@ -1,9 +1,14 @@
 package io.github.yezhihao.protostar.schema;
 
+import io.github.yezhihao.protostar.Endian;
 import io.github.yezhihao.protostar.Schema;
 import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.annotation.Message;
 import io.github.yezhihao.protostar.field.*;
 import io.github.yezhihao.protostar.util.DateTool;
+import io.github.yezhihao.protostar.util.IntMap;
+import io.github.yezhihao.protostar.util.LazyMap;
+import io.github.yezhihao.protostar.util.StringCache;
 import io.netty.buffer.ByteBuf;
 
 import java.nio.ByteBuffer;
@@ -64,6 +69,7 @@ public class SchemaRegistry {
         register(int.class,          /**/NumberPSchema.DWORD2Int::new, 4);
         register(long.class,         /**/NumberPSchema.DWORD2Long::new, 4);
         register(long.class,         /**/NumberPSchema.QWORD2Long::new, 8);
+        register(char.class,         /**/NumberPSchema.CHARLE::new, "LE");
         register(boolean.class,      /**/NumberPSchema.BOOL::new);
         register(char.class,         /**/NumberPSchema.CHAR::new);
         register(byte.class,         /**/NumberPSchema.BYTE2Byte::new);
@@ -93,6 +99,7 @@ public class SchemaRegistry {
         register(Integer.class,      /**/NumberSchema.DWORD2Int::new, 4);
         register(Long.class,         /**/NumberSchema.DWORD2Long::new, 4);
         register(Long.class,         /**/NumberSchema.QWORD2Long::new, 8);
+        register(Character.class,    /**/NumberSchema.CHARLE::new, "LE");
         register(Boolean.class,      /**/NumberSchema.BOOL::new);
         register(Character.class,    /**/NumberSchema.CHAR::new);
         register(Byte.class,         /**/NumberSchema.BYTE2Byte::new);
@@ -109,6 +116,12 @@ public class SchemaRegistry {
         register(long[].class,       /**/ArraySchema.LongArray::new);
         register(float[].class,      /**/ArraySchema.FloatArray::new);
         register(double[].class,     /**/ArraySchema.DoubleArray::new);
+        register(char[].class,       /**/ArraySchema.CharArrayLE::new, "LE");
+        register(short[].class,      /**/ArraySchema.ShortArrayLE::new, "LE");
+        register(int[].class,        /**/ArraySchema.IntArrayLE::new, "LE");
+        register(long[].class,       /**/ArraySchema.LongArrayLE::new, "LE");
+        register(float[].class,      /**/ArraySchema.FloatArrayLE::new, "LE");
+        register(double[].class,     /**/ArraySchema.DoubleArrayLE::new, "LE");
         register(ByteBuffer.class,   /**/BufferSchema.ByteBufferSchema::new);
         register(ByteBuf.class,      /**/BufferSchema.ByteBufSchema::new);
 
@@ -156,31 +169,68 @@ public class SchemaRegistry {
     }
 
 
+    /** 消息声明的默认字节序 */
+    public static Endian getEndian(Class typeClass) {
+        Message message = (Message) typeClass.getAnnotation(Message.class);
+        if (message == null)
+            return Endian.BIG;
+        return message.endian();
+    }
+
+    /** 字段的字节序，未指定时跟随消息 */
+    public static boolean isLittleEndian(Field field, Endian messageEndian) {
+        Endian endian = field.endian();
+        if (endian == Endian.DEFAULT) {
+            if ("LE".equalsIgnoreCase(field.charset()))
+                return true;
+            endian = messageEndian;
+        }
+        return endian == Endian.LITTLE;
+    }
+
+    /** 小端时优先查找LE实现，单字节等没有LE实现的类型与大端相同 */
+    private static Supplier<BasicField> getSupplier(String name, boolean littleEndian) {
+        Supplier<BasicField> supplier = null;
+        if (littleEndian)
+            supplier = NO_ARGS.get(name + "/LE");
+        if (supplier == null)
+            supplier = NO_ARGS.get(name);
+        return supplier;
+    }
+
     public static BasicField get(Field field, java.lang.reflect.Field f) {
+        return get(field, f, Endian.BIG);
+    }
+
+    public static BasicField get(Field field, java.lang.reflect.Field f, Endian messageEndian) {
         Class typeClass = f.getType();
         String name = typeClass.getName();
         String charset = field.charset().toUpperCase();
         int length = field.length();
+        boolean littleEndian = isLittleEndian(field, messageEndian);
         BasicField schema = null;
 
         if (NUMBER.containsKey(name)) {
             if (length > 0)
                 name += "/" + length;
-            if (charset.equals("LE"))
-                name += "/LE";
-            schema = NO_ARGS.get(name).get();
+            schema = getSupplier(name, littleEndian).get();
         } else if (String.class.isAssignableFrom(typeClass)) {
-            schema = StringSchema.getInstance(charset, length, field.lengthUnit());
+            StringCache cache = null;
+            if (field.cacheSize() > 0)
+                cache = new StringCache(f.getDeclaringClass().getSimpleName() + "." + f.getName(), field.cacheSize());
+            schema = StringSchema.getInstance(charset, length, field.lengthUnit(), cache, littleEndian);
+        } else if (field.retained() && ByteBuf.class == typeClass) {
+            schema = get(field, f, new BufferSchema.RetainedByteBufSchema(), messageEndian);
         } else if (Temporal.class.isAssignableFrom(typeClass)) {
             if (length > 0)
                 name += "/" + length;
             schema = TIME_SCHEMA.get(name).apply(charset.equals("BCD") ? DateTool.BCD : DateTool.BYTE);
         } else if (Schema.class != field.converter()) {
-            schema = get(field, f, getCustom(field.converter()));
+            schema = get(field, f, getCustom(field.converter()), messageEndian);
         } else {
-            Supplier<BasicField> supplier = NO_ARGS.get(name);
+            Supplier<BasicField> supplier = getSupplier(name, littleEndian);
             if (supplier != null) {
-                schema = get(field, f, supplier.get());
+                schema = get(field, f, supplier.get(), messageEndian);
             }
         }
 
@@ -191,26 +241,37 @@ public class SchemaRegistry {
     }
 
     public static BasicField get(Field field, java.lang.reflect.Field f, Schema schema) {
+        return get(field, f, schema, Endian.BIG);
+    }
+
+    public static BasicField get(Field field, java.lang.reflect.Field f, Schema schema, Endian messageEndian) {
         Class typeClass = f.getType();
+        boolean littleEndian = isLittleEndian(field, messageEndian);
+        if (IntMap.class.isAssignableFrom(typeClass)) {
+            return new IntMapField((MapSchema) schema, field.totalUnit(), littleEndian);
+        }
+        if (LazyMap.class.isAssignableFrom(typeClass)) {
+            return new LazyMapField((MapSchema) schema, field.totalUnit(), littleEndian);
+        }
         if (field.totalUnit() > 0) {
             if (Collection.class.isAssignableFrom(typeClass)) {
-                return new TotalCollectionField(schema, field.totalUnit());
+                return new TotalCollectionField(schema, field.totalUnit(), littleEndian);
             }
             if (Map.class.isAssignableFrom(typeClass)) {
-                return new TotalMapField((MapSchema) schema, field.totalUnit(), typeClass);
+                return new TotalMapField((MapSchema) schema, field.totalUnit(), typeClass, littleEndian);
             }
             if (typeClass.isArray()) {
                 typeClass = typeClass.getComponentType();
                 if (typeClass.isPrimitive())
-                    return new TotalArrayPrimitiveField(schema, field.totalUnit(), typeClass);
-                return new TotalArrayObjectField(schema, field.totalUnit(), typeClass);
+                    return new TotalArrayPrimitiveField(schema, field.totalUnit(), typeClass, littleEndian);
+                return new TotalArrayObjectField(schema, field.totalUnit(), typeClass, littleEndian);
             }
         }
 
         if (field.lengthUnit() > 0) {
             if (Collection.class.isAssignableFrom(typeClass))
-                return new LengthUnitCollectionField(schema, field.lengthUnit());
-            return new LengthUnitField(schema, field.lengthUnit());
+                return new LengthUnitCollectionField(schema, field.lengthUnit(), littleEndian);
+            return new LengthUnitField(schema, field.lengthUnit(), littleEndian);
         }
 
         if (field.length() > 0) {
@@ -3,11 +3,13 @@ package io.github.yezhihao.protostar.schema;
 import io.github.yezhihao.protostar.Schema;
 import io.github.yezhihao.protostar.field.BasicField;
 import io.github.yezhihao.protostar.field.LengthUnitField;
-import io.github.yezhihao.protostar.util.CharsBuilder;
+import io.github.yezhihao.protostar.util.CharsetCodec;
+import io.github.yezhihao.protostar.util.HexCodec;
+import io.github.yezhihao.protostar.util.StringCache;
 import io.netty.buffer.ByteBuf;
-import io.netty.util.internal.StringUtil;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ByteProcessor;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -20,6 +22,14 @@ public class StringSchema {
     public static final Schema<String> ASCII = new STR(StandardCharsets.US_ASCII, -1);
 
     public static BasicField<String> getInstance(String charset, int length, int lengthUnit) {
+        return getInstance(charset, length, lengthUnit, null);
+    }
+
+    public static BasicField<String> getInstance(String charset, int length, int lengthUnit, StringCache cache) {
+        return getInstance(charset, length, lengthUnit, cache, false);
+    }
+
+    public static BasicField<String> getInstance(String charset, int length, int lengthUnit, StringCache cache, boolean littleEndian) {
         final String cs = charset.toUpperCase();
         BasicField<String> schema;
         if ("BCD".equals(cs))
@@ -29,22 +39,37 @@ public class StringSchema {
         else
             schema = new STR(Charset.forName(charset), length);
 
+        if (cache != null)
+            schema = new Cached(schema, length, cache);
+
         if (lengthUnit > 0)
-            schema = new LengthUnitField(schema, lengthUnit);
+            schema = new LengthUnitField(schema, lengthUnit, littleEndian);
 
         return schema;
     }
 
     public static class STR extends BasicField<String> {
-        private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
         private final Charset charset;
+        private final CharsetCodec codec;
         private final int length;
         private final boolean fixed;
+        /** 0:其他字符集 1:单字节(US-ASCII、ISO-8859-1) 2:UTF-8，后两者可直接计算编码长度 */
+        private final int direct;
+        /** 单字节字符集可表示的最大字符，超出时写入'?'，与CharsetEncoder一致 */
+        private final int maxChar;
 
         private STR(Charset charset, int length) {
             this.charset = charset;
+            this.codec = CharsetCodec.get(charset);
             this.length = length;
             this.fixed = length > -1;
+            if (StandardCharsets.US_ASCII.equals(charset) || StandardCharsets.ISO_8859_1.equals(charset))
+                this.direct = 1;
+            else if (StandardCharsets.UTF_8.equals(charset))
+                this.direct = 2;
+            else
+                this.direct = 0;
+            this.maxChar = StandardCharsets.US_ASCII.equals(charset) ? 0x7f : 0xff;
         }
 
         @Override
@@ -54,39 +79,90 @@ public class StringSchema {
             if (fixed && len > length)
                 len = length;
 
-            byte[] bytes = new byte[len];
-            input.readBytes(bytes);
+            int index = input.readerIndex();
+            input.skipBytes(len);
 
-            int st = 0;
-            while ((st < len) && (bytes[st] == 0))
-                st++;
-            while ((st < len) && (bytes[len - 1] == 0))
-                len--;
-            return new String(bytes, st, len - st, charset);
+            int st = input.forEachByte(index, len, ByteProcessor.FIND_NON_NUL);
+            if (st < 0)
+                return "";
+            int end = input.forEachByteDesc(st, index + len - st, ByteProcessor.FIND_NON_NUL);
+            return input.toString(st, end - st + 1, charset);
         }
 
         @Override
         public void writeTo(ByteBuf output, String value) {
-            if (fixed) {
-                ByteBuffer buffer;
-                if (value == null) buffer = EMPTY;
-                else buffer = charset.encode(value);
-
-                int srcPos = length - buffer.limit();
-
-                if (srcPos > 0) {
-                    output.writeBytes(buffer);
-                    output.writeBytes(new byte[srcPos]);
-                } else if (srcPos < 0) {
-                    buffer.position(-srcPos);
-                    output.writeBytes(buffer);
-                } else {
-                    output.writeBytes(buffer);
-                }
+            if (value == null) {
+                if (fixed)
+                    output.writeZero(length);
+                return;
+            }
+            int direct = this.direct;
+            if (direct == 1 && hasSurrogate(value))
+                direct = 0;
+            if (direct == 1) {
+                int size = value.length();
+                int start = fixed && size > length ? size - length : 0;
+                writeSingleByte(output, value, start, size);
+                if (fixed && size < length)
+                    output.writeZero(length - size);
+                return;
+            }
+            if (!fixed) {
+                if (direct == 2)
+                    output.writeCharSequence(value, charset);
+                else
+                    codec.encode(output, value);
+                return;
+            }
+
+            if (direct == 0) {
+                codec.encodeFixed(output, value, length);
+                return;
+            }
+            int size = ByteBufUtil.utf8Bytes(value);
+            if (size > length) {
+                codec.encode(output, value, size - length);
             } else {
-                if (value != null)
-                    output.writeBytes(charset.encode(value));
+                output.writeCharSequence(value, charset);
+                output.writeZero(length - size);
+            }
+        }
+
+        @Override
+        public int sizeOf(String value) {
+            if (fixed)
+                return length;
+            if (value == null)
+                return 0;
+            if (direct == 1 && !hasSurrogate(value))
+                return value.length();
+            if (direct == 2)
+                return ByteBufUtil.utf8Bytes(value);
+            return codec.measure(value);
+        }
+
+        @Override
+        public int fixedSize() {
+            return fixed ? length : -1;
+        }
+
+        /** 代理对在单字节字符集中整体替换为一个'?'，交由CharsetEncoder处理 */
+        private static boolean hasSurrogate(String value) {
+            for (int i = 0, len = value.length(); i < len; i++)
+                if (Character.isSurrogate(value.charAt(i)))
+                    return true;
+            return false;
+        }
+
+        private void writeSingleByte(ByteBuf output, String value, int start, int end) {
+            int size = end - start;
+            output.ensureWritable(size);
+            int writerIndex = output.writerIndex();
+            for (int i = start; i < end; i++) {
+                char c = value.charAt(i);
+                output.setByte(writerIndex++, c > maxChar ? '?' : c);
             }
+            output.writerIndex(writerIndex);
         }
     }
 
@@ -101,42 +177,43 @@ public class StringSchema {
 
         @Override
         public String readFrom(ByteBuf input) {
-            return readCharsBuilder(input).toString();
-        }
-
-        protected CharsBuilder readCharsBuilder(ByteBuf input) {
-            int len = fixed ? length : input.readableBytes();
-            byte[] bytes = new byte[len];
-            input.readBytes(bytes);
-
-            CharsBuilder cb = new CharsBuilder(len << 1);
-            StringUtil.toHexStringPadded(cb, bytes);
-            return cb;
+            return HexCodec.readHex(input, fixed ? length : input.readableBytes());
         }
 
         @Override
         public void writeTo(ByteBuf output, String value) {
             if (value == null) {
-                if (fixed) output.writeBytes(new byte[length]);
+                if (fixed) output.writeZero(length);
                 return;
             }
+            HexCodec.writeHex(output, value, length);
+        }
 
-            int charSize = length << 1;
-            int strLength = value.length();
+        /** 定长时按绝对位置读取，不改变readerIndex */
+        public String getFrom(ByteBuf input, int index) {
+            return HexCodec.getHex(input, index, length, false);
+        }
 
-            if (!fixed) charSize = strLength + (strLength & 1);
+        /** 定长时按绝对位置写入，不改变writerIndex */
+        public void setTo(ByteBuf output, int index, String value) {
+            if (value == null)
+                output.setZero(index, length);
+            else
+                HexCodec.setHex(output, index, value, length);
+        }
 
-            char[] chars = new char[charSize];
-            int i = charSize - strLength;
-            if (i >= 0) {
-                value.getChars(0, charSize - i, chars, i);
-                while (i > 0)
-                    chars[--i] = '0';
-            } else {
-                value.getChars(-i, charSize - i, chars, 0);
-            }
-            byte[] src = StringUtil.decodeHexDump(new CharsBuilder(chars));
-            output.writeBytes(src);
+        @Override
+        public int sizeOf(String value) {
+            if (fixed)
+                return length;
+            if (value == null)
+                return 0;
+            return (value.length() + 1) >> 1;
+        }
+
+        @Override
+        public int fixedSize() {
+            return fixed ? length : -1;
         }
     }
 
@@ -147,7 +224,70 @@ public class StringSchema {
 
         @Override
         public String readFrom(ByteBuf input) {
-            return readCharsBuilder(input).leftStrip('0');
+            return HexCodec.readBCD(input, fixed ? length : input.readableBytes());
+        }
+
+        @Override
+        public String getFrom(ByteBuf input, int index) {
+            return HexCodec.getHex(input, index, length, true);
+        }
+    }
+
+    /** 以原始字节为键缓存解码结果 */
+    public static class Cached extends BasicField<String> {
+        private final BasicField<String> schema;
+        private final int length;
+        private final StringCache cache;
+
+        public Cached(BasicField<String> schema, int length, StringCache cache) {
+            this.schema = schema;
+            this.length = length;
+            this.cache = cache;
+        }
+
+        @Override
+        public String readFrom(ByteBuf input) {
+            int len = input.readableBytes();
+            if (length > -1) {
+                if (len < length)
+                    return schema.readFrom(input);
+                len = length;
+            }
+
+            int index = input.readerIndex();
+            int hash = StringCache.hash(input, index, len);
+            String value = cache.get(hash, input, index, len);
+            if (value != null) {
+                input.skipBytes(len);
+                return value;
+            }
+            value = schema.readFrom(input);
+            cache.put(hash, input, index, len, value);
+            return value;
+        }
+
+        @Override
+        public void writeTo(ByteBuf output, String value) {
+            schema.writeTo(output, value);
+        }
+
+        @Override
+        public int sizeOf(String value) {
+            return schema.sizeOf(value);
+        }
+
+        @Override
+        public int fixedSize() {
+            return schema.fixedSize();
+        }
+
+        @Override
+        public boolean skip(ByteBuf input) {
+            return schema.skip(input);
+        }
+
+        public StringCache cache() {
+            return cache;
         }
     }
-}
\ No newline at end of file
+}
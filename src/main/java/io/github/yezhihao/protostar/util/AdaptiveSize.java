@@ -0,0 +1,72 @@
+package io.github.yezhihao.protostar.util;
+
+/**
+ * 按最近的实际长度预测下次分配的容量，参考Netty的AdaptiveRecvByteBufAllocator
+ * 超出预测时直接增长到能容纳实际长度的档位，连续两次明显偏小时才降低一档
+ * 多线程并发记录时结果可能互相覆盖，仅影响预测的准确性
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public class AdaptiveSize {
+
+    /** 512以下按16递增，之后按2倍递增 */
+    private static final int[] SIZE_TABLE;
+
+    static {
+        int[] table = new int[31 + 22];
+        int i = 0;
+        for (int size = 16; size < 512; size += 16)
+            table[i++] = size;
+        for (int size = 512; size > 0; size <<= 1)
+            table[i++] = size;
+        SIZE_TABLE = table;
+    }
+
+    private int index;
+    private int nextSize;
+    private boolean decreaseNow;
+
+    public AdaptiveSize(int initial) {
+        this.index = indexOf(initial);
+        this.nextSize = SIZE_TABLE[index];
+    }
+
+    /** 容纳size的最小档位 */
+    private static int indexOf(int size) {
+        int low = 0;
+        int high = SIZE_TABLE.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (SIZE_TABLE[mid] < size)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /** 下次分配的容量 */
+    public int guess() {
+        return nextSize;
+    }
+
+    /** 记录本次的实际长度 */
+    public void record(int actual) {
+        int index = this.index;
+        if (actual > nextSize) {
+            index = indexOf(actual);
+            decreaseNow = false;
+        } else if (index > 0 && actual <= SIZE_TABLE[index - 1]) {
+            if (decreaseNow) {
+                index--;
+                decreaseNow = false;
+            } else {
+                decreaseNow = true;
+            }
+        } else {
+            decreaseNow = false;
+        }
+        this.index = index;
+        this.nextSize = SIZE_TABLE[index];
+    }
+}
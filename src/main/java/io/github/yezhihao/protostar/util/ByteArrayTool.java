@@ -0,0 +1,168 @@
+package io.github.yezhihao.protostar.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * 按ByteBuf的方法名与语义读写byte[]，用于堆内存ByteBuf的定长字段批量读写
+ * 调用方已检查过整段长度，数组视图VarHandle只剩数组自身的边界检查
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public final class ByteArrayTool {
+
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle SHORT_LE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private ByteArrayTool() {
+    }
+
+    public static boolean getBoolean(byte[] array, int index) {
+        return array[index] != 0;
+    }
+
+    public static byte getByte(byte[] array, int index) {
+        return array[index];
+    }
+
+    public static short getUnsignedByte(byte[] array, int index) {
+        return (short) (array[index] & 0xff);
+    }
+
+    public static char getChar(byte[] array, int index) {
+        return (char) (short) SHORT.get(array, index);
+    }
+
+    public static short getShort(byte[] array, int index) {
+        return (short) SHORT.get(array, index);
+    }
+
+    public static int getUnsignedShort(byte[] array, int index) {
+        return (short) SHORT.get(array, index) & 0xffff;
+    }
+
+    public static int getMedium(byte[] array, int index) {
+        return array[index] << 16 | (array[index + 1] & 0xff) << 8 | array[index + 2] & 0xff;
+    }
+
+    public static int getInt(byte[] array, int index) {
+        return (int) INT.get(array, index);
+    }
+
+    public static long getUnsignedInt(byte[] array, int index) {
+        return (int) INT.get(array, index) & 0xffffffffL;
+    }
+
+    public static float getFloat(byte[] array, int index) {
+        return Float.intBitsToFloat((int) INT.get(array, index));
+    }
+
+    public static long getLong(byte[] array, int index) {
+        return (long) LONG.get(array, index);
+    }
+
+    public static double getDouble(byte[] array, int index) {
+        return Double.longBitsToDouble((long) LONG.get(array, index));
+    }
+
+    public static short getShortLE(byte[] array, int index) {
+        return (short) SHORT_LE.get(array, index);
+    }
+
+    public static int getUnsignedShortLE(byte[] array, int index) {
+        return (short) SHORT_LE.get(array, index) & 0xffff;
+    }
+
+    public static int getMediumLE(byte[] array, int index) {
+        return array[index] & 0xff | (array[index + 1] & 0xff) << 8 | array[index + 2] << 16;
+    }
+
+    public static int getIntLE(byte[] array, int index) {
+        return (int) INT_LE.get(array, index);
+    }
+
+    public static long getUnsignedIntLE(byte[] array, int index) {
+        return (int) INT_LE.get(array, index) & 0xffffffffL;
+    }
+
+    public static float getFloatLE(byte[] array, int index) {
+        return Float.intBitsToFloat((int) INT_LE.get(array, index));
+    }
+
+    public static long getLongLE(byte[] array, int index) {
+        return (long) LONG_LE.get(array, index);
+    }
+
+    public static double getDoubleLE(byte[] array, int index) {
+        return Double.longBitsToDouble((long) LONG_LE.get(array, index));
+    }
+
+    public static void setBoolean(byte[] array, int index, boolean value) {
+        array[index] = (byte) (value ? 1 : 0);
+    }
+
+    public static void setByte(byte[] array, int index, int value) {
+        array[index] = (byte) value;
+    }
+
+    public static void setChar(byte[] array, int index, int value) {
+        SHORT.set(array, index, (short) value);
+    }
+
+    public static void setShort(byte[] array, int index, int value) {
+        SHORT.set(array, index, (short) value);
+    }
+
+    public static void setMedium(byte[] array, int index, int value) {
+        array[index] = (byte) (value >>> 16);
+        array[index + 1] = (byte) (value >>> 8);
+        array[index + 2] = (byte) value;
+    }
+
+    public static void setInt(byte[] array, int index, int value) {
+        INT.set(array, index, value);
+    }
+
+    public static void setFloat(byte[] array, int index, float value) {
+        INT.set(array, index, Float.floatToRawIntBits(value));
+    }
+
+    public static void setLong(byte[] array, int index, long value) {
+        LONG.set(array, index, value);
+    }
+
+    public static void setDouble(byte[] array, int index, double value) {
+        LONG.set(array, index, Double.doubleToRawLongBits(value));
+    }
+
+    public static void setShortLE(byte[] array, int index, int value) {
+        SHORT_LE.set(array, index, (short) value);
+    }
+
+    public static void setMediumLE(byte[] array, int index, int value) {
+        array[index] = (byte) value;
+        array[index + 1] = (byte) (value >>> 8);
+        array[index + 2] = (byte) (value >>> 16);
+    }
+
+    public static void setIntLE(byte[] array, int index, int value) {
+        INT_LE.set(array, index, value);
+    }
+
+    public static void setFloatLE(byte[] array, int index, float value) {
+        INT_LE.set(array, index, Float.floatToRawIntBits(value));
+    }
+
+    public static void setLongLE(byte[] array, int index, long value) {
+        LONG_LE.set(array, index, value);
+    }
+
+    public static void setDoubleLE(byte[] array, int index, double value) {
+        LONG_LE.set(array, index, Double.doubleToRawLongBits(value));
+    }
+}
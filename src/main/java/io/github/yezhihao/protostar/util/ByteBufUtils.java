@@ -1,6 +1,7 @@
 package io.github.yezhihao.protostar.util;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 
 /**
  * Netty ByteBuf工具类
@@ -9,6 +10,26 @@ import io.netty.buffer.ByteBuf;
  */
 public class ByteBufUtils {
 
+    /** 不小于该长度的数据写入CompositeByteBuf时作为组件追加，不复制 */
+    public static final int COMPONENT_THRESHOLD = 1024;
+    /** 追加组件后为之后的字段预留的可写空间 */
+    private static final int COMPONENT_TAIL = 64;
+
+    /** output为CompositeByteBuf且数据足够大时，可使用addComponent代替复制 */
+    public static boolean composable(ByteBuf output, int length) {
+        return length >= COMPONENT_THRESHOLD && output instanceof CompositeByteBuf;
+    }
+
+    /** 截去output未写入的空间后追加component，component由output负责释放 */
+    public static void addComponent(ByteBuf output, ByteBuf component) {
+        CompositeByteBuf composite = (CompositeByteBuf) output;
+        int writerIndex = composite.writerIndex();
+        if (composite.capacity() > writerIndex)
+            composite.capacity(writerIndex);
+        composite.addComponent(true, component);
+        composite.capacity(composite.writerIndex() + COMPONENT_TAIL);
+    }
+
     public static int readInt(ByteBuf input, int length) {
         int value;
         switch (length) {
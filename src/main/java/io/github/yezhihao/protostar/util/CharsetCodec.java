@@ -0,0 +1,186 @@
+package io.github.yezhihao.protostar.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按线程缓存CharsetEncoder，直接编码到ByteBuf的NIO缓冲区
+ * 非法或无法映射的字符替换为字符集的默认替换值，与Charset.encode一致
+ * 解码仍使用ByteBuf.toString，JDK对GBK等字符集的数组解码已足够快，缓存CharsetDecoder反而更慢
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public final class CharsetCodec {
+
+    private static final ConcurrentMap<Charset, CharsetCodec> CODECS = new ConcurrentHashMap<>();
+
+    private static final int SCRATCH_SIZE = 256;
+
+    private static final int MAX_CHARS = 1024;
+
+    private final Charset charset;
+    private final float maxBytesPerChar;
+
+    private final FastThreadLocal<State> state = new FastThreadLocal<>() {
+        @Override
+        protected State initialValue() {
+            return new State(charset);
+        }
+    };
+
+    private CharsetCodec(Charset charset) {
+        this.charset = charset;
+        this.maxBytesPerChar = charset.newEncoder().maxBytesPerChar();
+    }
+
+    public static CharsetCodec get(Charset charset) {
+        return CODECS.computeIfAbsent(charset, CharsetCodec::new);
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    /** 编码后的字节数，仅计算不输出 */
+    public int measure(CharSequence value) {
+        State state = this.state.get();
+        CharsetEncoder encoder = state.encoder.reset();
+        CharBuffer src = state.load(value);
+        ByteBuffer dst = state.bytes;
+        int size = 0;
+        CoderResult result;
+        do {
+            dst.clear();
+            result = encoder.encode(src, dst, true);
+            size += dst.position();
+        } while (result.isOverflow());
+        do {
+            dst.clear();
+            result = encoder.flush(dst);
+            size += dst.position();
+        } while (result.isOverflow());
+        return size;
+    }
+
+    /** 写入编码后的全部字节，返回写入的字节数 */
+    public int encode(ByteBuf output, CharSequence value) {
+        if (value.length() == 0)
+            return 0;
+        int writerIndex = output.writerIndex();
+        int maxSize = (int) Math.ceil(value.length() * (double) maxBytesPerChar);
+        //按最大字节数预留会超出maxCapacity时，经scratch分段写入，只需实际长度的空间
+        if (output.maxWritableBytes() < maxSize)
+            return encode(output, value, 0);
+        output.ensureWritable(maxSize);
+        if (output.nioBufferCount() != 1)
+            return encode(output, value, 0);
+
+        State state = this.state.get();
+        ByteBuffer dst = output.internalNioBuffer(writerIndex, maxSize);
+        int start = dst.position();
+        CharsetEncoder encoder = state.encoder.reset();
+        CoderResult result = encoder.encode(state.load(value), dst, true);
+        if (result.isUnderflow())
+            result = encoder.flush(dst);
+        if (!result.isUnderflow())
+            throw new IllegalStateException("encode failed " + result);
+        int size = dst.position() - start;
+        output.writerIndex(writerIndex + size);
+        return size;
+    }
+
+    /**
+     * 写入定长字段，不足时右侧补0，超出时截取右侧
+     * 先直接编码到output，仅在超长时回退并重新编码，补齐无需额外缓冲区
+     */
+    public void encodeFixed(ByteBuf output, CharSequence value, int length) {
+        if (output.maxWritableBytes() < value.length() * (double) maxBytesPerChar) {
+            int size = measure(value);
+            encode(output, value, Math.max(size - length, 0));
+            if (size < length)
+                output.writeZero(length - size);
+            return;
+        }
+        int writerIndex = output.writerIndex();
+        int size = encode(output, value);
+        if (size <= length) {
+            output.writeZero(length - size);
+        } else {
+            output.writerIndex(writerIndex);
+            encode(output, value, size - length);
+        }
+    }
+
+    /** 跳过编码结果的前skip个字节，写入其余字节，返回写入的字节数 */
+    public int encode(ByteBuf output, CharSequence value, int skip) {
+        State state = this.state.get();
+        CharsetEncoder encoder = state.encoder.reset();
+        CharBuffer src = state.load(value);
+        ByteBuffer dst = state.bytes;
+        int size = 0;
+        boolean flushed = false;
+        CoderResult result;
+        do {
+            dst.clear();
+            if (!flushed) {
+                result = encoder.encode(src, dst, true);
+                if (result.isUnderflow()) {
+                    flushed = true;
+                    result = encoder.flush(dst);
+                }
+            } else {
+                result = encoder.flush(dst);
+            }
+            dst.flip();
+            int remaining = dst.remaining();
+            if (skip >= remaining) {
+                skip -= remaining;
+            } else {
+                dst.position(skip);
+                skip = 0;
+                size += dst.remaining();
+                output.writeBytes(dst);
+            }
+        } while (result.isOverflow());
+        return size;
+    }
+
+    private static final class State {
+        private final CharsetEncoder encoder;
+        private final ByteBuffer bytes = ByteBuffer.allocate(SCRATCH_SIZE);
+        private CharBuffer chars = CharBuffer.allocate(64);
+
+        private State(Charset charset) {
+            this.encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        /** 复制到基于数组的CharBuffer，使编码器走数组循环 */
+        private CharBuffer load(CharSequence value) {
+            int length = value.length();
+            CharBuffer chars = length > MAX_CHARS ? CharBuffer.allocate(length) : chars(length);
+            if (value instanceof String)
+                ((String) value).getChars(0, length, chars.array(), 0);
+            else
+                for (int i = 0; i < length; i++)
+                    chars.put(i, value.charAt(i));
+            chars.limit(length);
+            return chars;
+        }
+
+        private CharBuffer chars(int size) {
+            CharBuffer chars = this.chars;
+            if (chars.capacity() < size)
+                this.chars = chars = CharBuffer.allocate(MAX_CHARS);
+            chars.clear();
+            return chars;
+        }
+    }
+}
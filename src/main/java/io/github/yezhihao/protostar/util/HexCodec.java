@@ -0,0 +1,132 @@
+package io.github.yezhihao.protostar.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 查表实现的HEX、BCD编解码，直接读写ByteBuf，不产生中间数组
+ * 解码结果为Latin-1字符串，仅分配String本身
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public final class HexCodec {
+
+    /** 每个字节对应的两个小写十六进制字符 */
+    private static final byte[] DIGITS = new byte[512];
+
+    /** 字符对应的数值，非十六进制字符为-1 */
+    private static final byte[] VALUES = new byte[128];
+
+    private static final int MAX_SCRATCH = 1024;
+
+    private static final FastThreadLocal<byte[]> SCRATCH = new FastThreadLocal<>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[64];
+        }
+    };
+
+    static {
+        byte[] hex = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+        for (int i = 0; i < 256; i++) {
+            DIGITS[i << 1] = hex[i >>> 4];
+            DIGITS[(i << 1) + 1] = hex[i & 0xf];
+        }
+        for (int i = 0; i < VALUES.length; i++)
+            VALUES[i] = -1;
+        for (int i = 0; i < 10; i++)
+            VALUES['0' + i] = (byte) i;
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private HexCodec() {
+    }
+
+    /** 读取length字节并转为十六进制字符串 */
+    public static String readHex(ByteBuf input, int length) {
+        int index = input.readerIndex();
+        input.skipBytes(length);
+        return getHex(input, index, length, false);
+    }
+
+    /** 读取length字节并转为BCD字符串，去除左侧的0 */
+    public static String readBCD(ByteBuf input, int length) {
+        int index = input.readerIndex();
+        input.skipBytes(length);
+        return getHex(input, index, length, true);
+    }
+
+    /** 不改变readerIndex */
+    public static String getHex(ByteBuf input, int index, int length, boolean stripLeadingZero) {
+        int charSize = length << 1;
+        byte[] chars = scratch(charSize);
+
+        if (input.hasArray()) {
+            byte[] array = input.array();
+            int offset = input.arrayOffset() + index;
+            for (int i = 0, j = 0; i < length; i++, j += 2) {
+                int b = (array[offset + i] & 0xff) << 1;
+                chars[j] = DIGITS[b];
+                chars[j + 1] = DIGITS[b + 1];
+            }
+        } else {
+            for (int i = 0, j = 0; i < length; i++, j += 2) {
+                int b = (input.getByte(index + i) & 0xff) << 1;
+                chars[j] = DIGITS[b];
+                chars[j + 1] = DIGITS[b + 1];
+            }
+        }
+
+        int start = 0;
+        if (stripLeadingZero)
+            while (start < charSize && chars[start] == '0')
+                start++;
+        return new String(chars, start, charSize - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 将十六进制字符串写入length字节，不足时左侧补0，超出时截取右侧
+     * @param length 小于0时按字符串长度(奇数时左侧补0)
+     */
+    public static void writeHex(ByteBuf output, String value, int length) {
+        if (length < 0)
+            length = (value.length() + 1) >> 1;
+
+        output.ensureWritable(length);
+        int writerIndex = output.writerIndex();
+        setHex(output, writerIndex, value, length);
+        output.writerIndex(writerIndex + length);
+    }
+
+    /** 不改变writerIndex，调用方需保证可写入length字节 */
+    public static void setHex(ByteBuf output, int index, String value, int length) {
+        int pad = (length << 1) - value.length();
+        for (int i = 0, v = -pad; i < length; i++, v += 2) {
+            int hi = v < 0 ? 0 : digit(value, v);
+            int lo = v + 1 < 0 ? 0 : digit(value, v + 1);
+            output.setByte(index + i, (hi << 4) | lo);
+        }
+    }
+
+    private static int digit(String value, int index) {
+        char c = value.charAt(index);
+        int digit = c < 128 ? VALUES[c] : -1;
+        if (digit < 0)
+            throw new IllegalArgumentException("invalid hex character '" + c + "' at index " + index + " of " + value);
+        return digit;
+    }
+
+    private static byte[] scratch(int size) {
+        if (size > MAX_SCRATCH)
+            return new byte[size];
+        byte[] bytes = SCRATCH.get();
+        if (bytes.length < size)
+            SCRATCH.set(bytes = new byte[MAX_SCRATCH]);
+        return bytes;
+    }
+}
@@ -0,0 +1,220 @@
+package io.github.yezhihao.protostar.util;
+
+import java.util.Arrays;
+
+/**
+ * key为int的有序Map，用于附加信息等小型TLV集合，key与整数值均不装箱
+ * 使用有序int[]存储key，Object[]存储对象值，long[]存储整数值；TLV通常按key升序出现，插入为追加
+ * 整数值通过getLong/getInt读取，get返回Long，非线程安全
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public class IntMap {
+
+    /** 标记该位置的值存储在longs中 */
+    private static final Object LONG = new Object();
+
+    private int[] keys;
+    private Object[] values;
+    private long[] longs;
+    private int size;
+
+    public IntMap() {
+        this(8);
+    }
+
+    public IntMap(int capacity) {
+        capacity = Math.max(capacity, 2);
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.longs = new long[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /** key所在的位置，不存在时返回负数 */
+    public int indexOf(int key) {
+        int size = this.size;
+        if (size > 0 && keys[size - 1] == key)
+            return size - 1;
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    /** 按位置读取key，位置在[0, size)之间，按key升序排列 */
+    public int keyAt(int i) {
+        return keys[i];
+    }
+
+    /** 按位置读取值，整数值返回Long */
+    public Object valueAt(int i) {
+        Object value = values[i];
+        if (value == LONG)
+            return longs[i];
+        return value;
+    }
+
+    /** 该位置的值是否为不装箱的整数 */
+    public boolean isLongAt(int i) {
+        return values[i] == LONG;
+    }
+
+    public long longAt(int i) {
+        Object value = values[i];
+        if (value == LONG)
+            return longs[i];
+        return ((Number) value).longValue();
+    }
+
+    public Object get(int key) {
+        int i = indexOf(key);
+        if (i < 0)
+            return null;
+        return valueAt(i);
+    }
+
+    public long getLong(int key, long defaultValue) {
+        int i = indexOf(key);
+        if (i < 0)
+            return defaultValue;
+        return longAt(i);
+    }
+
+    public int getInt(int key, int defaultValue) {
+        int i = indexOf(key);
+        if (i < 0)
+            return defaultValue;
+        return (int) longAt(i);
+    }
+
+    public IntMap put(int key, Object value) {
+        if (value == null)
+            throw new NullPointerException("value");
+        int i = slot(key);
+        values[i] = value;
+        longs[i] = 0;
+        return this;
+    }
+
+    public IntMap putLong(int key, long value) {
+        int i = slot(key);
+        values[i] = LONG;
+        longs[i] = value;
+        return this;
+    }
+
+    public IntMap putInt(int key, int value) {
+        return putLong(key, value);
+    }
+
+    public boolean remove(int key) {
+        int i = indexOf(key);
+        if (i < 0)
+            return false;
+        int move = size - i - 1;
+        if (move > 0) {
+            System.arraycopy(keys, i + 1, keys, i, move);
+            System.arraycopy(values, i + 1, values, i, move);
+            System.arraycopy(longs, i + 1, longs, i, move);
+        }
+        values[--size] = null;
+        return true;
+    }
+
+    /** 清空后保留数组，用于对象复用 */
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    /** 返回key对应的位置，不存在时插入并保持升序 */
+    private int slot(int key) {
+        int size = this.size;
+        if (size == 0 || keys[size - 1] < key) {
+            ensureCapacity(size + 1);
+            keys[size] = key;
+            this.size = size + 1;
+            return size;
+        }
+        int i = Arrays.binarySearch(keys, 0, size, key);
+        if (i >= 0)
+            return i;
+        i = -(i + 1);
+        ensureCapacity(size + 1);
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(values, i, values, i + 1, size - i);
+        System.arraycopy(longs, i, longs, i + 1, size - i);
+        keys[i] = key;
+        this.size = size + 1;
+        return i;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= keys.length)
+            return;
+        int capacity = Math.max(minCapacity, keys.length << 1);
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        longs = Arrays.copyOf(longs, capacity);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof IntMap)) return false;
+
+        IntMap that = (IntMap) other;
+        if (size != that.size) return false;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != that.keys[i])
+                return false;
+            Object a = valueAt(i);
+            Object b = that.valueAt(i);
+            if (a instanceof byte[] && b instanceof byte[]) {
+                if (!Arrays.equals((byte[]) a, (byte[]) b))
+                    return false;
+            } else if (!a.equals(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < size; i++) {
+            Object value = valueAt(i);
+            result = 31 * result + keys[i];
+            result = 31 * result + (value instanceof byte[] ? Arrays.hashCode((byte[]) value) : value.hashCode());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size * 16 + 2);
+        sb.append('{');
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(keys[i]).append('=');
+            Object value = valueAt(i);
+            if (value instanceof byte[])
+                sb.append(Arrays.toString((byte[]) value));
+            else
+                sb.append(value);
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -22,6 +22,21 @@ public interface IntTool {
         }
     }
 
+    static IntTool getInstance(int length, boolean littleEndian) {
+        if (!littleEndian)
+            return getInstance(length);
+        switch (length) {
+            case 2:
+                return WORD_LE;
+            case 3:
+                return MEDIUM_LE;
+            case 4:
+                return DWORD_LE;
+            default:
+                return getInstance(length);
+        }
+    }
+
     int get(ByteBuf in, int i);
 
     void set(ByteBuf out, int i, int n);
@@ -135,4 +150,67 @@ public interface IntTool {
             out.writeInt(n);
         }
     };
+    IntTool WORD_LE = new IntTool() {
+        @Override
+        public int get(ByteBuf in, int i) {
+            return in.getUnsignedShortLE(i);
+        }
+
+        @Override
+        public void set(ByteBuf out, int i, int n) {
+            out.setShortLE(i, n);
+        }
+
+        @Override
+        public int read(ByteBuf in) {
+            return in.readUnsignedShortLE();
+        }
+
+        @Override
+        public void write(ByteBuf out, int n) {
+            out.writeShortLE(n);
+        }
+    };
+    IntTool MEDIUM_LE = new IntTool() {
+        @Override
+        public int get(ByteBuf in, int i) {
+            return in.getUnsignedMediumLE(i);
+        }
+
+        @Override
+        public void set(ByteBuf out, int i, int n) {
+            out.setMediumLE(i, n);
+        }
+
+        @Override
+        public int read(ByteBuf in) {
+            return in.readUnsignedMediumLE();
+        }
+
+        @Override
+        public void write(ByteBuf out, int n) {
+            out.writeMediumLE(n);
+        }
+    };
+    IntTool DWORD_LE = new IntTool() {
+        @Override
+        public int get(ByteBuf in, int i) {
+            return in.getIntLE(i);
+        }
+
+        @Override
+        public void set(ByteBuf out, int i, int n) {
+            out.setIntLE(i, n);
+        }
+
+        @Override
+        public int read(ByteBuf in) {
+            return in.readIntLE();
+        }
+
+        @Override
+        public void write(ByteBuf out, int n) {
+            out.writeIntLE(n);
+        }
+    };
 }
\ No newline at end of file
@@ -0,0 +1,213 @@
+package io.github.yezhihao.protostar.util;
+
+import io.github.yezhihao.protostar.Schema;
+import io.github.yezhihao.protostar.schema.MapSchema;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.*;
+
+/**
+ * 延迟解码的字典，解码时只索引各值的位置，get时才解码对应的值并缓存
+ * 原始字节复制为独立的byte[]，不持有解码时的ByteBuf；未解码的值写入时原样输出
+ * 修改(put/remove/clear)时全部解码并转为LinkedHashMap，之后不再延迟
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public class LazyMap<K, V> extends AbstractMap<K, V> {
+
+    private static final Object UNDECODED = new Object();
+
+    private final MapSchema mapSchema;
+    private final byte[] data;
+    private final Object[] keys;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final Object[] values;
+    private final int size;
+    /** 修改后的内容，为null时表示未修改 */
+    private Map<K, V> map;
+
+    public LazyMap(MapSchema mapSchema, byte[] data, Object[] keys, int[] offsets, int[] lengths, int size) {
+        this.mapSchema = mapSchema;
+        this.data = data;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.size = size;
+        this.values = new Object[size];
+        Arrays.fill(values, UNDECODED);
+    }
+
+    /** 是否未经修改，未修改时可通过keyAt、valueAt按位置读取 */
+    public boolean indexed() {
+        return map == null;
+    }
+
+    public K keyAt(int i) {
+        return (K) keys[i];
+    }
+
+    /** 该位置的值是否仍未解码 */
+    public boolean isRaw(int i) {
+        return values[i] == UNDECODED;
+    }
+
+    public int rawLength(int i) {
+        return lengths[i];
+    }
+
+    /** 写入该位置值的原始字节 */
+    public void writeRaw(ByteBuf output, int i) {
+        output.writeBytes(data, offsets[i], lengths[i]);
+    }
+
+    public V valueAt(int i) {
+        Object value = values[i];
+        if (value == UNDECODED)
+            values[i] = value = decode(i);
+        return (V) value;
+    }
+
+    private Object decode(int i) {
+        int offset = offsets[i];
+        int length = lengths[i];
+        Schema schema = mapSchema.valueSchema(keys[i]);
+        if (schema == null)
+            return Arrays.copyOfRange(data, offset, offset + length);
+        try {
+            return schema.readFrom(Unpooled.wrappedBuffer(data, offset, length));
+        } catch (Exception e) {
+            throw new RuntimeException("解析出错:ID[" + keys[i] + "], LENGTH[" + length + "]", e);
+        }
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < size; i++)
+            if (keys[i].equals(key))
+                return i;
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        if (map != null)
+            return map.size();
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (map != null)
+            return map.containsKey(key);
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (map != null)
+            return map.get(key);
+        int i = indexOf(key);
+        if (i < 0)
+            return null;
+        return valueAt(i);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return inflate().put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return inflate().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        inflate().clear();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (map != null)
+            return map.entrySet();
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new Iterator<>() {
+                    private int i;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < size;
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        if (i >= size)
+                            throw new NoSuchElementException();
+                        return new LazyEntry(i++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private Map<K, V> inflate() {
+        Map<K, V> map = this.map;
+        if (map == null) {
+            map = new LinkedHashMap<>((int) (size / 0.75) + 1);
+            for (int i = 0; i < size; i++)
+                map.put((K) keys[i], valueAt(i));
+            this.map = map;
+        }
+        return map;
+    }
+
+    private class LazyEntry implements Entry<K, V> {
+        private final int i;
+
+        private LazyEntry(int i) {
+            this.i = i;
+        }
+
+        @Override
+        public K getKey() {
+            return (K) keys[i];
+        }
+
+        @Override
+        public V getValue() {
+            return valueAt(i);
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("use LazyMap.put");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry))
+                return false;
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.yezhihao.protostar.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 按Class缓存构建结果，读取不加锁，每个类最多构建一次
+ * 结果保存在ClassValue中，随类卸载回收，不会因值引用Class而泄漏
+ * 每个类单独加锁，不相关的类可并行构建，嵌套类型在同一线程内递归构建
+ * 类型之间存在循环引用时抛出IllegalStateException，两个线程分别构建环上的类时同样抛出而不是死锁
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public class SchemaCache<V> {
+
+    /** 正在等待其他线程构建的线程，用于发现跨线程的循环引用 */
+    private static final Map<Thread, Holder<?>> WAITING = new ConcurrentHashMap<>();
+
+    private final Function<Class<?>, V> builder;
+
+    private final ClassValue<Holder<V>> holders = new ClassValue<>() {
+        @Override
+        protected Holder<V> computeValue(Class<?> type) {
+            return new Holder<>();
+        }
+    };
+
+    public SchemaCache(Function<Class<?>, V> builder) {
+        this.builder = builder;
+    }
+
+    public V get(Class<?> type) {
+        Holder<V> holder = holders.get(type);
+        if (holder.done)
+            return holder.value;
+        return build(type, holder);
+    }
+
+    /** 构建与等待放在单独的方法中，使get足够小以便内联 */
+    private V build(Class<?> type, Holder<V> holder) {
+        Thread current = Thread.currentThread();
+        synchronized (holder) {
+            if (!await(type, holder, current))
+                return holder.value;
+            holder.owner = current;
+        }
+        //构建时不持有锁，嵌套类型的构建只锁各自的holder
+        try {
+            V value = builder.apply(type);
+            synchronized (holder) {
+                holder.value = value;
+                holder.done = true;
+            }
+            return value;
+        } finally {
+            //构建失败时不标记done，等待的线程重新构建
+            synchronized (holder) {
+                holder.owner = null;
+                holder.notifyAll();
+            }
+        }
+    }
+
+    /** 等待其他线程构建完成，返回true表示由当前线程构建，须持有holder的锁 */
+    private static boolean await(Class<?> type, Holder<?> holder, Thread current) {
+        boolean interrupted = false;
+        try {
+            while (!holder.done) {
+                Thread owner = holder.owner;
+                if (owner == null)
+                    return true;
+                //先登记再检查，两个线程同时进入环时至少一方能看到对方
+                WAITING.put(current, holder);
+                try {
+                    if (owner == current || waitsFor(owner, current))
+                        throw new IllegalStateException("不支持循环引用:" + type.getName());
+                    holder.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } finally {
+                    WAITING.remove(current);
+                }
+            }
+            return false;
+        } finally {
+            if (interrupted)
+                current.interrupt();
+        }
+    }
+
+    /** owner是否直接或间接等待current构建的类，链上的状态可能正在变化，限制查找次数 */
+    private static boolean waitsFor(Thread owner, Thread current) {
+        for (int i = 0; owner != null && i < 64; i++) {
+            Holder<?> waiting = WAITING.get(owner);
+            if (waiting == null)
+                return false;
+            owner = waiting.owner;
+            if (owner == current)
+                return true;
+        }
+        return false;
+    }
+
+    private static class Holder<V> {
+        /** 在done之前写入，由done的volatile写发布 */
+        private V value;
+        private volatile boolean done;
+        /** 正在构建的线程，只在持有该holder的锁时写入 */
+        private volatile Thread owner;
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.yezhihao.protostar.util;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 字符串解码缓存，以原始字节为键，直接从ByteBuf计算哈希与比较，命中时不产生任何对象
+ * 直接映射的定长表，冲突时覆盖旧值，线程安全(Entry不可变，覆盖无需加锁)
+ * @author yezhihao
+ * https://gitee.com/yezhihao/jt808-server
+ */
+public final class StringCache {
+
+    /** 弱引用登记，不阻止所属Schema及缓存的字符串被回收 */
+    private static final Map<StringCache, Boolean> CACHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final String name;
+    private final Entry[] table;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StringCache(String name, int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.name = name;
+        this.table = new Entry[size];
+        this.mask = size - 1;
+        CACHES.put(this, Boolean.TRUE);
+    }
+
+    /** 当前仍在使用的缓存的快照，用于观察命中率 */
+    public static List<StringCache> caches() {
+        synchronized (CACHES) {
+            return new ArrayList<>(CACHES.keySet());
+        }
+    }
+
+    public static int hash(ByteBuf input, int index, int length) {
+        int h = 0x811c9dc5;
+        if (input.hasArray()) {
+            byte[] array = input.array();
+            int offset = input.arrayOffset() + index;
+            for (int i = 0; i < length; i++)
+                h = (h ^ array[offset + i]) * 0x01000193;
+        } else {
+            for (int i = 0; i < length; i++)
+                h = (h ^ input.getByte(index + i)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /** 未命中返回null */
+    public String get(int hash, ByteBuf input, int index, int length) {
+        Entry entry = table[hash & mask];
+        if (entry != null && entry.hash == hash && entry.equals(input, index, length)) {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(int hash, ByteBuf input, int index, int length, String value) {
+        byte[] raw = new byte[length];
+        input.getBytes(index, raw);
+        table[hash & mask] = new Entry(hash, raw, value);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int capacity() {
+        return table.length;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(64);
+        sb.append("{name=").append(name);
+        sb.append(", capacity=").append(table.length);
+        sb.append(", hits=").append(hits.sum());
+        sb.append(", misses=").append(misses.sum());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static final class Entry {
+        private final int hash;
+        private final byte[] raw;
+        private final String value;
+
+        private Entry(int hash, byte[] raw, String value) {
+            this.hash = hash;
+            this.raw = raw;
+            this.value = value;
+        }
+
+        private boolean equals(ByteBuf input, int index, int length) {
+            byte[] raw = this.raw;
+            if (raw.length != length)
+                return false;
+            if (input.hasArray()) {
+                byte[] array = input.array();
+                int offset = input.arrayOffset() + index;
+                for (int i = 0; i < length; i++)
+                    if (raw[i] != array[offset + i])
+                        return false;
+            } else {
+                for (int i = 0; i < length; i++)
+                    if (raw[i] != input.getByte(index + i))
+                        return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.yezhihao.protostar.convert;
+
+import io.github.yezhihao.protostar.AccessMode;
+import io.github.yezhihao.protostar.ProtostarUtil;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.github.yezhihao.protostar.util.ArrayMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.util.HashMap;
+
+/**
+ * 不同AccessMode构建的Schema读写结果一致，耗时对比见protostar-benchmarks中的AccessModeBenchmark
+ */
+public class AccessModeTest {
+
+    public static void main(String[] args) {
+        if (AccessMode.parse(" generated ") != AccessMode.GENERATED || AccessMode.parse("unknown") != AccessMode.REFLECT || AccessMode.parse(null) != AccessMode.REFLECT)
+            throw new AssertionError("parse");
+
+        AccessMode[] modes = AccessMode.values();
+        ArrayMap<RuntimeSchema>[] schemas = new ArrayMap[modes.length];
+        for (int i = 0; i < modes.length; i++)
+            schemas[i] = ProtostarUtil.getRuntimeSchema(new HashMap<>(), T0200.class, modes[i]);
+
+        T0200 bean = PressureTest.foo();
+        for (int version = -1; version <= 1; version++) {
+            String expected = null;
+            for (int i = 0; i < modes.length; i++) {
+                RuntimeSchema<T0200> schema = schemas[i].get(version);
+                ByteBuf buf = Unpooled.buffer(256);
+                schema.writeTo(buf, bean);
+                String hex = ByteBufUtil.hexDump(buf);
+
+                //解码后以REFLECT重新编码，比较读取到的字段
+                T0200 result = schema.readFrom(buf);
+                ByteBuf again = Unpooled.buffer(256);
+                schemas[0].get(version).writeTo(again, result);
+
+                if (expected == null)
+                    expected = hex;
+                if (!expected.equals(hex) || !expected.equals(ByteBufUtil.hexDump(again)))
+                    throw new AssertionError(modes[i] + " version " + version + ": " + hex);
+            }
+            System.out.println("version " + version + ": " + modes.length + " modes equal");
+        }
+    }
+}
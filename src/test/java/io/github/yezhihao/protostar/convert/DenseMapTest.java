@@ -0,0 +1,157 @@
+package io.github.yezhihao.protostar.convert;
+
+import io.github.yezhihao.protostar.PrepareLoadStrategy;
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.MapSchema;
+import io.github.yezhihao.protostar.schema.NumberSchema;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.github.yezhihao.protostar.schema.StringSchema;
+import io.github.yezhihao.protostar.util.IntMap;
+import io.github.yezhihao.protostar.util.LazyMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * key稀疏分布时按下标查找(DenseSchema)与按HashMap查找(SparseSchema)的结果一致
+ * 空隙中与超出数组长度的未注册key解码为byte[]
+ */
+public class DenseMapTest {
+
+    public static void main(String[] args) {
+        DenseSchema dense = new DenseSchema();
+        SparseSchema sparse = new SparseSchema();
+        System.out.println("intKeys: " + dense.intKeys() + " " + sparse.intKeys());
+        if (!dense.intKeys() || sparse.intKeys())
+            throw new AssertionError("dense lookup not selected");
+
+        int[] keys = {0, 1, 2, 0x25, 0x3FE, 0x3FF, 0x400, 0x1000, 0xFFFF};
+        for (int key : keys) {
+            boolean registered = key == 1 || key == 0x25 || key == 0x3FF;
+            if ((dense.valueSchema(key) != null) != registered || dense.valueSchema(key) != dense.valueSchema((Object) key))
+                throw new AssertionError("dense " + key);
+            if (sparse.valueSchema(key) != (key == 0x1000 ? NumberSchema.DWORD_INT : dense.valueSchema(key)))
+                throw new AssertionError("sparse " + key);
+        }
+
+        //totalUnit = 1，每个字段以1字节的数量开头
+        ByteBuf buffer = Unpooled.buffer(64).writeByte(keys.length);
+        for (int key : keys) {
+            buffer.writeShort(key);
+            if (key == 0x25) {
+                byte[] bytes = "张三".getBytes(Charset.forName("GBK"));
+                buffer.writeByte(bytes.length).writeBytes(bytes);
+            } else {
+                buffer.writeByte(4).writeInt(key * 10);
+            }
+        }
+
+        RuntimeSchema<Dense> denseSchema = SingleVersionUtil.getRuntimeSchema(Dense.class);
+        RuntimeSchema<Sparse> sparseSchema = SingleVersionUtil.getRuntimeSchema(Sparse.class);
+        Dense a = denseSchema.readFrom(Unpooled.wrappedBuffer(buffer.duplicate(), buffer.duplicate(), buffer.duplicate()));
+        Sparse b = sparseSchema.readFrom(Unpooled.wrappedBuffer(buffer.duplicate(), buffer.duplicate()));
+
+        //0x1000只在SparseSchema中注册
+        String expected = "{0=00000000, 1=10, 2=00000014, 37=张三, 1022=000027ec, 1023=10230, 1024=00002800, 4096=0000a000, 65535=0009fff6}";
+        String sparseExpected = expected.replace("4096=0000a000", "4096=40960");
+        check("dense map", expected, render(a.map));
+        check("dense lazy", expected, render(a.lazy));
+        check("dense intMap", expected, render(a.intMap));
+        check("sparse map", sparseExpected, render(b.map));
+        check("sparse lazy", sparseExpected, render(b.lazy));
+
+        //只含已注册key时，两种查找方式编码一致
+        Map<Integer, Object> registered = new TreeMap<>();
+        registered.put(1, 10);
+        registered.put(0x25, "张三");
+        registered.put(0x3FF, 10230);
+        Dense c = new Dense();
+        c.map = registered;
+        Sparse d = new Sparse();
+        d.map = registered;
+        check("write", write(denseSchema, c), write(sparseSchema, d));
+        System.out.println(expected);
+    }
+
+    private static <T> String write(RuntimeSchema<T> schema, T message) {
+        ByteBuf output = Unpooled.buffer(128);
+        schema.writeTo(output, message);
+        return ByteBufUtil.hexDump(output);
+    }
+
+    private static void check(String name, String expected, String actual) {
+        if (!expected.equals(actual))
+            throw new AssertionError(name + ": " + expected + " != " + actual);
+    }
+
+    private static String render(Map<Integer, Object> map) {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (Map.Entry<Integer, Object> entry : map.entrySet())
+            joiner.add(entry.getKey() + "=" + render(entry.getValue()));
+        return joiner.toString();
+    }
+
+    private static String render(IntMap map) {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (int i = 0; i < map.size(); i++)
+            joiner.add(map.keyAt(i) + "=" + render(map.valueAt(i)));
+        return joiner.toString();
+    }
+
+    private static String render(Object value) {
+        return value instanceof byte[] ? ByteBufUtil.hexDump((byte[]) value) : String.valueOf(value);
+    }
+
+    /** key均小于1024，按下标查找 */
+    public static class DenseSchema extends MapSchema<Number, Object> {
+        public DenseSchema() {
+            super(NumberSchema.WORD_INT, 1);
+        }
+
+        @Override
+        protected void addSchemas(PrepareLoadStrategy<Number> schemaRegistry) {
+            schemaRegistry
+                    .addSchema(1, NumberSchema.DWORD_INT)
+                    .addSchema(0x25, StringSchema.GBK)
+                    .addSchema(0x3FF, NumberSchema.DWORD_INT);
+        }
+    }
+
+    /** 0x1000超出下标范围，全部key按HashMap查找 */
+    public static class SparseSchema extends MapSchema<Number, Object> {
+        public SparseSchema() {
+            super(NumberSchema.WORD_INT, 1);
+        }
+
+        @Override
+        protected void addSchemas(PrepareLoadStrategy<Number> schemaRegistry) {
+            schemaRegistry
+                    .addSchema(1, NumberSchema.DWORD_INT)
+                    .addSchema(0x25, StringSchema.GBK)
+                    .addSchema(0x3FF, NumberSchema.DWORD_INT)
+                    .addSchema(0x1000, NumberSchema.DWORD_INT);
+        }
+    }
+
+    public static class Dense {
+        @Field(totalUnit = 1, desc = "属性", converter = DenseSchema.class)
+        private Map<Integer, Object> map;
+        @Field(totalUnit = 1, desc = "属性", converter = DenseSchema.class)
+        private LazyMap<Integer, Object> lazy;
+        @Field(totalUnit = 1, desc = "属性", converter = DenseSchema.class)
+        private IntMap intMap;
+    }
+
+    public static class Sparse {
+        @Field(totalUnit = 1, desc = "属性", converter = SparseSchema.class)
+        private Map<Integer, Object> map;
+        @Field(totalUnit = 1, desc = "属性", converter = SparseSchema.class)
+        private LazyMap<Integer, Object> lazy;
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.yezhihao.protostar.convert;
+
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.github.yezhihao.protostar.util.IntMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class IntMapTest {
+
+    public static void main(String[] args) {
+        RuntimeSchema<Foo> mapSchema = SingleVersionUtil.getRuntimeSchema(Foo.class);
+        RuntimeSchema<Bar> intMapSchema = SingleVersionUtil.getRuntimeSchema(Bar.class);
+
+        Foo foo = new Foo();
+        Map<Integer, Object> attrs = new TreeMap<>();
+        attrs.put(1, 123);
+        attrs.put(2, "李四");
+        attrs.put(3, new Attr1("test", 1));
+        attrs.put(4, new Attr2(2, "test2"));
+        foo.attributes = attrs;
+        foo.total = attrs;
+
+        Bar bar = new Bar();
+        IntMap intMap = new IntMap();
+        intMap.put(4, new Attr2(2, "test2"));
+        intMap.put(2, "李四");
+        intMap.putInt(1, 123);
+        intMap.put(3, new Attr1("test", 1));
+        bar.attributes = intMap;
+        bar.total = intMap;
+
+        ByteBuf buffer = Unpooled.buffer(64);
+        mapSchema.writeTo(buffer, foo);
+        String mapHex = ByteBufUtil.hexDump(buffer);
+        System.out.println(mapHex);
+
+        buffer = Unpooled.buffer(64);
+        intMapSchema.writeTo(buffer, bar);
+        String intMapHex = ByteBufUtil.hexDump(buffer);
+        System.out.println(intMapHex);
+        System.out.println(mapHex.equals(intMapHex));
+        System.out.println(intMapSchema.sizeOf(bar) == buffer.readableBytes());
+
+        Bar result = intMapSchema.readFrom(buffer);
+        System.out.println(result.total);
+        System.out.println(result.attributes);
+        System.out.println(result.attributes.getInt(1, 0) + " " + result.attributes.isLongAt(0));
+        System.out.println(intMap.toString().equals(result.total.toString()) && intMap.toString().equals(result.attributes.toString()));
+    }
+
+    public static class Foo {
+        @Field(totalUnit = 1, desc = "属性", converter = AttributeSchema.class)
+        private Map<Integer, Object> total;
+        @Field(desc = "属性", converter = AttributeSchema.class)
+        private Map<Integer, Object> attributes;
+    }
+
+    public static class Bar {
+        @Field(totalUnit = 1, desc = "属性", converter = AttributeSchema.class)
+        private IntMap total;
+        @Field(desc = "属性", converter = AttributeSchema.class)
+        private IntMap attributes;
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.yezhihao.protostar.convert;
+
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.github.yezhihao.protostar.util.LazyMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class LazyMapTest {
+
+    public static void main(String[] args) {
+        RuntimeSchema<Foo> mapSchema = SingleVersionUtil.getRuntimeSchema(Foo.class);
+        RuntimeSchema<Bar> lazySchema = SingleVersionUtil.getRuntimeSchema(Bar.class);
+
+        Foo foo = new Foo();
+        Map<Integer, Object> attrs = new TreeMap<>();
+        attrs.put(1, 123);
+        attrs.put(2, "李四");
+        attrs.put(3, new Attr1("test", 1));
+        attrs.put(4, new Attr2(2, "test2"));
+        foo.total = attrs;
+        foo.attributes = attrs;
+
+        ByteBuf buffer = Unpooled.buffer(64);
+        mapSchema.writeTo(buffer, foo);
+        String hex = ByteBufUtil.hexDump(buffer);
+        System.out.println(hex);
+
+        Bar bar = lazySchema.readFrom(buffer);
+        System.out.println(bar.attributes.get(3));
+        System.out.println(bar.attributes.isRaw(0) + " " + bar.attributes.isRaw(2));
+
+        buffer = Unpooled.buffer(64);
+        lazySchema.writeTo(buffer, bar);
+        System.out.println(hex.equals(ByteBufUtil.hexDump(buffer)));
+        System.out.println(lazySchema.sizeOf(bar) == buffer.readableBytes());
+
+        System.out.println(bar.total);
+        bar.total.put(1, 456);
+        buffer = Unpooled.buffer(64);
+        lazySchema.writeTo(buffer, bar);
+        bar = lazySchema.readFrom(buffer);
+        System.out.println(bar.total);
+
+        //未注册的键值对不写入，数量与实际写入的一致
+        bar.total.put(99, new Object());
+        buffer = Unpooled.buffer(64);
+        lazySchema.writeTo(buffer, bar);
+        bar = lazySchema.readFrom(buffer);
+        System.out.println(bar.total.size() + " " + bar.attributes.size());
+
+        //重复的key与MapField一样取最后出现的值，位置为首次出现的位置
+        RuntimeSchema<Tail> tailSchema = SingleVersionUtil.getRuntimeSchema(Tail.class);
+        RuntimeSchema<LazyTail> lazyTailSchema = SingleVersionUtil.getRuntimeSchema(LazyTail.class);
+        Map<Integer, Object> first = new TreeMap<>();
+        first.put(1, 123);
+        first.put(2, "李四");
+        buffer = Unpooled.buffer(64);
+        tailSchema.writeTo(buffer, new Tail(first));
+        tailSchema.writeTo(buffer, new Tail(Map.of(1, 456)));
+        Map<Integer, Object> expected = tailSchema.readFrom(buffer.duplicate()).attributes;
+        LazyMap<Integer, Object> lazy = lazyTailSchema.readFrom(buffer).attributes;
+        if (!expected.equals(lazy) || !lazy.get(1).equals(456) || !lazy.keySet().iterator().next().equals(1))
+            throw new AssertionError(expected + " != " + lazy);
+        System.out.println(expected + " " + lazy);
+    }
+
+    public static class Foo {
+        @Field(totalUnit = 1, desc = "属性", converter = AttributeSchema.class)
+        private Map<Integer, Object> total;
+        @Field(desc = "属性", converter = AttributeSchema.class)
+        private Map<Integer, Object> attributes;
+    }
+
+    public static class Bar {
+        @Field(totalUnit = 1, desc = "属性", converter = AttributeSchema.class)
+        private LazyMap<Integer, Object> total;
+        @Field(desc = "属性", converter = AttributeSchema.class)
+        private LazyMap<Integer, Object> attributes;
+    }
+
+    public static class Tail {
+        @Field(desc = "属性", converter = AttributeSchema.class)
+        private Map<Integer, Object> attributes;
+
+        public Tail() {
+        }
+
+        public Tail(Map<Integer, Object> attributes) {
+            this.attributes = attributes;
+        }
+    }
+
+    public static class LazyTail {
+        @Field(desc = "属性", converter = AttributeSchema.class)
+        private LazyMap<Integer, Object> attributes;
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.yezhihao.protostar.multiversion;
+
+import io.github.yezhihao.protostar.ProtostarUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.github.yezhihao.protostar.util.ArrayMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class RecordTest {
+
+    public static void main(String[] args) {
+        ArrayMap<RuntimeSchema> multiVersionSchema = ProtostarUtil.getRuntimeSchema(Foo.class);
+
+        for (int version = 0; version <= 1; version++) {
+            RuntimeSchema<Foo> schema = multiVersionSchema.get(version);
+            Foo foo = new Foo("张三", 128, LocalDateTime.of(2020, 7, 7, 19, 23, 59),
+                    List.of(new Item(1, 0.5f), new Item(2, 1.5f)));
+
+            ByteBuf buffer = Unpooled.buffer(32);
+            schema.writeTo(buffer, foo);
+            System.out.println(ByteBufUtil.hexDump(buffer));
+
+            Foo result = schema.readFrom(buffer);
+            System.out.println(result);
+            System.out.println(foo.equals(result));
+
+            buffer.readerIndex(0);
+            System.out.println(schema.project("id", "dateTime").readFrom(buffer));
+            System.out.println("=========================version: " + version);
+        }
+
+        //截断的消息，定长的头部不足时不读取，投影与完整解码的结果一致
+        RuntimeSchema<Frame> schema = ProtostarUtil.getRuntimeSchema(Frame.class).get(0);
+        ByteBuf buffer = Unpooled.buffer(32);
+        schema.writeTo(buffer, new Frame(new byte[]{1, 2, 3, 4}, 5, "abc"));
+        for (int i = 1; i <= buffer.readableBytes(); i++) {
+            int length = i;
+            String full = selected(() -> schema.readFrom(buffer.slice(0, length)));
+            String projected = selected(() -> schema.project("id", "name").readFrom(buffer.slice(0, length)));
+            if (!full.equals(projected))
+                throw new AssertionError(length + ": " + full + " != " + projected);
+        }
+        System.out.println("truncated projection: " + buffer.readableBytes() + " lengths match");
+    }
+
+    private static String selected(Supplier<Frame> reader) {
+        try {
+            Frame frame = reader.get();
+            return frame.id() + " " + frame.name();
+        } catch (RuntimeException e) {
+            return "failed";
+        }
+    }
+
+    public record Foo(
+            @Field(lengthUnit = 1, desc = "名称", version = 0)
+            @Field(length = 10, desc = "名称", version = 1)
+            String name,
+            @Field(length = 2, desc = "ID", version = 0)
+            @Field(length = 4, desc = "ID", version = 1)
+            int id,
+            @Field(charset = "BCD", desc = "日期", version = {0, 1})
+            LocalDateTime dateTime,
+            @Field(totalUnit = 1, desc = "列表", version = {0, 1})
+            List<Item> items) {
+    }
+
+    public record Item(
+            @Field(length = 1, desc = "编号")
+            int id,
+            @Field(desc = "数值")
+            float value) {
+    }
+
+    public record Frame(
+            @Field(length = 4, desc = "头部")
+            byte[] head,
+            @Field(length = 1, desc = "ID")
+            int id,
+            @Field(lengthUnit = 1, desc = "名称")
+            String name) {
+    }
+}
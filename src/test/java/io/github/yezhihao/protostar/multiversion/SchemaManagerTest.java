@@ -0,0 +1,43 @@
+package io.github.yezhihao.protostar.multiversion;
+
+import io.github.yezhihao.protostar.SchemaManager;
+import io.github.yezhihao.protostar.multiversion.RecordTest.Foo;
+import io.github.yezhihao.protostar.multiversion.RecordTest.Item;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 按消息ID与版本解码，WORD范围内的ID(包括0x8xxx)查下标表，范围之外的ID查typeIdMapping
+ */
+public class SchemaManagerTest {
+
+    public static void main(String[] args) {
+        int[] typeIds = {0x0001, 0x0200, 0x8001, 0x8900, 0xFFFF, 0x10000, -1};
+        SchemaManager manager = new SchemaManager();
+        for (int typeId : typeIds)
+            manager.loadRuntimeSchema(typeId, Foo.class);
+
+        Foo foo = new Foo("张三", 128, LocalDateTime.of(2020, 7, 7, 19, 23, 59),
+                List.of(new Item(1, 0.5f), new Item(2, 1.5f)));
+        for (int version = 0; version <= 1; version++) {
+            for (int typeId : typeIds) {
+                ByteBuf buffer = Unpooled.buffer(64);
+                manager.getRuntimeSchema(typeId, version).writeTo(buffer, foo);
+                Foo result = manager.decode(typeId, version, buffer);
+                //version 1的名称为定长字段，补齐的0不计入比较
+                if (result.id() != foo.id() || !result.items().equals(foo.items()) || !result.dateTime().equals(foo.dateTime()))
+                    throw new AssertionError(Integer.toHexString(typeId) + "/" + version + ": " + result);
+            }
+        }
+        System.out.println("decode: " + typeIds.length + " ids x 2 versions");
+
+        if (manager.decode(0x8002, 0, Unpooled.buffer(1).writeByte(0)) != null)
+            throw new AssertionError("unregistered 0x8002");
+        if (manager.getRuntimeSchema(0x8001) != manager.getRuntimeSchema(Integer.valueOf(0x8001)))
+            throw new AssertionError("Integer lookup");
+        System.out.println("unregistered: null");
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.yezhihao.protostar.simple;
+
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * encodeComposite时大块的byte[]、ByteBuf字段作为组件引用，内容与encode一致，ByteBuf字段的引用随返回值释放
+ */
+public class CompositeTest {
+
+    public static void main(String[] args) {
+        RuntimeSchema<Media> schema = SingleVersionUtil.getRuntimeSchema(Media.class);
+
+        for (int size : new int[]{100, 4096}) {
+            byte[] data = new byte[size];
+            byte[] payload = new byte[size * 2];
+            for (int i = 0; i < payload.length; i++)
+                payload[i] = (byte) i;
+            Media media = new Media(1, data, Unpooled.wrappedBuffer(payload), 2);
+
+            ByteBuf expected = schema.encode(media);
+            media.payload.readerIndex(0);
+
+            CompositeByteBuf output = schema.encodeComposite(media);
+            int referenced = 0;
+            for (int i = 0; i < output.numComponents(); i++) {
+                ByteBuf component = output.internalComponent(i);
+                if (component.hasArray() && (component.array() == data || component.array() == payload))
+                    referenced++;
+            }
+            if (!ByteBufUtil.equals(expected, output))
+                throw new AssertionError(size + ": content");
+            //小于阈值时复制，大块数据的两个字段各占一个组件
+            if (referenced != (size < 1024 ? 0 : 2))
+                throw new AssertionError(size + ": referenced " + referenced);
+            int components = output.numComponents();
+            int retained = media.payload.refCnt();
+            output.release();
+            expected.release();
+            if (media.payload.refCnt() != 1 || retained != (size < 1024 ? 1 : 2))
+                throw new AssertionError(size + ": refCnt " + retained + "/" + media.payload.refCnt());
+            System.out.println(size + ": components " + components + ", referenced " + referenced + ", refCnt " + retained + " -> " + media.payload.refCnt());
+        }
+    }
+
+    public static class Media {
+        @Field(length = 4, desc = "ID")
+        private int id;
+        @Field(lengthUnit = 2, desc = "数据")
+        private byte[] data;
+        @Field(lengthUnit = 2, desc = "数据包")
+        private ByteBuf payload;
+        @Field(length = 1, desc = "结尾")
+        private int tail;
+
+        public Media() {
+        }
+
+        public Media(int id, byte[] data, ByteBuf payload, int tail) {
+            this.id = id;
+            this.data = data;
+            this.payload = payload;
+            this.tail = tail;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.yezhihao.protostar.simple;
+
+import io.github.yezhihao.protostar.AccessMode;
+import io.github.yezhihao.protostar.Endian;
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.annotation.Message;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 消息级小端，字段可单独指定大端，前置长度、数量随字段字节序
+ */
+public class EndianTest {
+
+    public static void main(String[] args) {
+        Foo foo = new Foo();
+        foo.id = 0x01020304;
+        foo.word = 0x0506;
+        foo.c = 'A';
+        foo.big = 0x0708;
+        foo.name = "张三";
+        foo.values = new int[20];
+        for (int i = 0; i < foo.values.length; i++)
+            foo.values[i] = i * 0x01010101;
+        foo.items = List.of(new Item(1, 0.5f), new Item(2, 1.5f));
+
+        String expected = ByteBufUtil.hexDump(expected(foo));
+        System.out.println(expected);
+
+        for (AccessMode mode : AccessMode.values()) {
+            RuntimeSchema<Foo> schema = SingleVersionUtil.getRuntimeSchema(new HashMap<>(), Foo.class, mode);
+
+            ByteBuf buffer = Unpooled.buffer(64);
+            schema.writeTo(buffer, foo);
+            Foo result = schema.readFrom(buffer);
+            System.out.println(mode + " " + expected.equals(ByteBufUtil.hexDump(buffer, 0, buffer.writerIndex())) + " " + foo.equals(result));
+        }
+    }
+
+    private static ByteBuf expected(Foo foo) {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeIntLE(foo.id);
+        buf.writeShortLE(foo.word);
+        buf.writeShortLE(foo.c);
+        buf.writeShort(foo.big);
+        byte[] name = foo.name.getBytes(Charset.forName("GBK"));
+        buf.writeShortLE(name.length).writeBytes(name);
+        buf.writeShortLE(foo.values.length);
+        for (int value : foo.values)
+            buf.writeIntLE(value);
+        buf.writeShortLE(foo.items.size());
+        for (Item item : foo.items)
+            buf.writeShortLE(item.id).writeFloatLE(item.value);
+        return buf;
+    }
+
+    @Message(endian = Endian.LITTLE)
+    public static class Foo {
+        @Field(length = 4, desc = "ID")
+        private int id;
+        @Field(length = 2, desc = "WORD")
+        private int word;
+        @Field(desc = "字符")
+        private char c;
+        @Field(length = 2, desc = "大端", endian = Endian.BIG)
+        private int big;
+        @Field(lengthUnit = 2, desc = "名称")
+        private String name;
+        @Field(totalUnit = 2, desc = "采样值")
+        private int[] values;
+        @Field(totalUnit = 2, desc = "列表")
+        private List<Item> items;
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Foo)) return false;
+            Foo that = (Foo) o;
+            return id == that.id && word == that.word && c == that.c && big == that.big && name.equals(that.name) &&
+                    Arrays.equals(values, that.values) && items.equals(that.items);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, word, c, big, name, Arrays.hashCode(values), items);
+        }
+    }
+
+    @Message(endian = Endian.LITTLE)
+    public static class Item {
+        @Field(length = 2, desc = "ID")
+        private int id;
+        @Field(desc = "值")
+        private float value;
+
+        public Item() {
+        }
+
+        public Item(int id, float value) {
+            this.id = id;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Item)) return false;
+            Item that = (Item) o;
+            return id == that.id && Float.compare(value, that.value) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, value);
+        }
+    }
+}
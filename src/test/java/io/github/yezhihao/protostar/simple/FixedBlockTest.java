@@ -0,0 +1,195 @@
+package io.github.yezhihao.protostar.simple;
+
+import io.github.yezhihao.protostar.AccessMode;
+import io.github.yezhihao.protostar.Endian;
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.annotation.Message;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * GENERATED合并读写的连续定长字段与REFLECT逐个读写的结果一致，包括堆内存(含数组偏移)、直接内存与截断的输入
+ */
+public class FixedBlockTest {
+
+    public static void main(String[] args) {
+        check(Block.class, new Block(-2, 0x1234, -7, 0x123456, Long.MIN_VALUE + 3, 1.5f, -2.25, 'Z', true, "13800000001", "a1b2c3d4", "名称", 0xFFFFFFFFL, 65535));
+        check(Block.class, new Block(0, 0, 0, 0, 0, 0, 0, '\0', false, "1", "0000000f", "", 0, 0));
+        check(LittleBlock.class, new LittleBlock(0x01020304, 0x0506, 0x0708090A0B0C0D0EL, 3.5f, "x", 0x7F, -1));
+    }
+
+    private static <T> void check(Class<T> type, T message) {
+        RuntimeSchema<T> reflect = SingleVersionUtil.getRuntimeSchema(new HashMap<>(), type, AccessMode.REFLECT);
+        RuntimeSchema<T> generated = SingleVersionUtil.getRuntimeSchema(new HashMap<>(), type, AccessMode.GENERATED);
+
+        ByteBuf expected = Unpooled.buffer(128);
+        reflect.writeTo(expected, message);
+        String hex = ByteBufUtil.hexDump(expected);
+        int size = expected.readableBytes();
+
+        Supplier<ByteBuf>[] outputs = new Supplier[]{
+                () -> Unpooled.buffer(8),
+                () -> Unpooled.buffer(size + 16).slice(5, size + 8).clear(),
+                () -> Unpooled.directBuffer(8),
+                () -> PooledByteBufAllocator.DEFAULT.directBuffer(8),
+                () -> PooledByteBufAllocator.DEFAULT.heapBuffer(8)
+        };
+        for (Supplier<ByteBuf> supplier : outputs) {
+            ByteBuf output = supplier.get();
+            generated.writeTo(output, message);
+            if (!hex.equals(ByteBufUtil.hexDump(output)))
+                throw new AssertionError(output + ": " + hex + " != " + ByteBufUtil.hexDump(output));
+            T result = generated.readFrom(output);
+            if (!message.equals(result) || output.isReadable())
+                throw new AssertionError(output + ": " + message + " != " + result);
+            output.release();
+        }
+
+        //截断的输入退回逐个读取，结果与REFLECT一致
+        for (int length = 1; length < size; length++) {
+            for (ByteBuf input : new ByteBuf[]{expected.slice(0, length), Unpooled.directBuffer(length).writeBytes(expected, 0, length)}) {
+                String a = read(reflect, input.duplicate());
+                String b = read(generated, input.duplicate());
+                if (!a.equals(b))
+                    throw new AssertionError(length + " " + input + ": " + a + " != " + b);
+            }
+        }
+        System.out.println(type.getSimpleName() + " " + size + " bytes equal: " + hex);
+    }
+
+    private static <T> String read(RuntimeSchema<T> schema, ByteBuf input) {
+        try {
+            return schema.readFrom(input) + " " + input.readerIndex();
+        } catch (RuntimeException e) {
+            return "failed";
+        }
+    }
+
+    public static class Block {
+        @Field(length = 1, desc = "BYTE")
+        private int b;
+        @Field(length = 2, desc = "WORD")
+        private int s;
+        @Field(length = 4, desc = "DWORD")
+        private int i;
+        @Field(length = 3, desc = "MEDIUM")
+        private int medium;
+        @Field(length = 8, desc = "QWORD")
+        private long l;
+        @Field(desc = "FLOAT")
+        private float f;
+        @Field(desc = "DOUBLE")
+        private double d;
+        @Field(desc = "CHAR")
+        private char c;
+        @Field(desc = "BOOL")
+        private boolean flag;
+        @Field(length = 6, charset = "BCD", desc = "BCD")
+        private String bcd;
+        @Field(length = 4, charset = "HEX", desc = "HEX")
+        private String hex;
+        @Field(lengthUnit = 1, desc = "变长")
+        private String name;
+        @Field(length = 4, desc = "无符号DWORD")
+        private long dword;
+        @Field(length = 2, desc = "无符号WORD")
+        private int word;
+
+        public Block() {
+        }
+
+        public Block(int b, int s, int i, int medium, long l, float f, double d, char c, boolean flag, String bcd, String hex, String name, long dword, int word) {
+            this.b = b;
+            this.s = s;
+            this.i = i;
+            this.medium = medium;
+            this.l = l;
+            this.f = f;
+            this.d = d;
+            this.c = c;
+            this.flag = flag;
+            this.bcd = bcd;
+            this.hex = hex;
+            this.name = name;
+            this.dword = dword;
+            this.word = word;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Block))
+                return false;
+            Block that = (Block) o;
+            return (byte) b == (byte) that.b && (short) s == (short) that.s && i == that.i && medium == that.medium && l == that.l &&
+                    f == that.f && d == that.d && c == that.c && flag == that.flag && Objects.equals(bcd, that.bcd) &&
+                    Objects.equals(hex, that.hex) && Objects.equals(name, that.name) && dword == that.dword && word == that.word;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(i, l, bcd, hex, name);
+        }
+
+        @Override
+        public String toString() {
+            return b + "," + s + "," + i + "," + medium + "," + l + "," + f + "," + d + "," + (int) c + "," + flag + "," + bcd + "," + hex + "," + name + "," + dword + "," + word;
+        }
+    }
+
+    @Message(endian = Endian.LITTLE)
+    public static class LittleBlock {
+        @Field(length = 4, desc = "DWORD")
+        private int i;
+        @Field(length = 2, desc = "WORD")
+        private int s;
+        @Field(length = 8, desc = "QWORD")
+        private long l;
+        @Field(desc = "FLOAT")
+        private float f;
+        @Field(lengthUnit = 2, desc = "变长")
+        private String name;
+        @Field(length = 1, desc = "BYTE")
+        private int b;
+        @Field(length = 4, desc = "DWORD")
+        private int tail;
+
+        public LittleBlock() {
+        }
+
+        public LittleBlock(int i, int s, long l, float f, String name, int b, int tail) {
+            this.i = i;
+            this.s = s;
+            this.l = l;
+            this.f = f;
+            this.name = name;
+            this.b = b;
+            this.tail = tail;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof LittleBlock))
+                return false;
+            LittleBlock that = (LittleBlock) o;
+            return i == that.i && s == that.s && l == that.l && Float.compare(f, that.f) == 0 && Objects.equals(name, that.name) && b == that.b && tail == that.tail;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(i, s, l, f, name, b, tail);
+        }
+
+        @Override
+        public String toString() {
+            return i + "," + s + "," + l + "," + f + "," + name + "," + b + "," + tail;
+        }
+    }
+}
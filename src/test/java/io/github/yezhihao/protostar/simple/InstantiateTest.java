@@ -0,0 +1,71 @@
+package io.github.yezhihao.protostar.simple;
+
+import io.github.yezhihao.protostar.AccessMode;
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.HashMap;
+
+/**
+ * 通过Supplier与反射创建的消息一致：私有构造器同样执行一次，字段初始值相同
+ * 无法生成Supplier的类型(抽象类)退回反射，两种方式抛出相同的异常
+ */
+public class InstantiateTest {
+
+    private static int constructed;
+
+    public static void main(String[] args) {
+        ByteBuf buffer = Unpooled.buffer(8).writeByte(7).writeShort(300);
+        String expected = null;
+        for (AccessMode mode : AccessMode.values()) {
+            RuntimeSchema<Foo> schema = SingleVersionUtil.getRuntimeSchema(new HashMap<>(), Foo.class, mode);
+            constructed = 0;
+            Foo foo = schema.readFrom(buffer.duplicate());
+            Foo created = schema.newInstance();
+            String result = foo + " " + created + " " + constructed;
+            if (expected == null)
+                expected = result;
+            if (!expected.equals(result))
+                throw new AssertionError(mode + ": " + expected + " != " + result);
+
+            RuntimeSchema<Abstract> abstractSchema = SingleVersionUtil.getRuntimeSchema(new HashMap<>(), Abstract.class, mode);
+            try {
+                abstractSchema.readFrom(buffer.duplicate());
+                throw new AssertionError(mode + ": abstract class instantiated");
+            } catch (RuntimeException e) {
+                Throwable cause = e;
+                while (cause.getCause() != null)
+                    cause = cause.getCause();
+                if (!(cause instanceof InstantiationException))
+                    throw new AssertionError(mode + ": " + e, e);
+            }
+        }
+        System.out.println(expected);
+    }
+
+    public static class Foo {
+        @Field(length = 1, desc = "ID")
+        private int id;
+        @Field(length = 2, desc = "数值")
+        private int value = -1;
+        private String source = "default";
+
+        private Foo() {
+            constructed++;
+            source += "/constructor";
+        }
+
+        @Override
+        public String toString() {
+            return id + "," + value + "," + source;
+        }
+    }
+
+    public abstract static class Abstract {
+        @Field(length = 1, desc = "ID")
+        private int id;
+    }
+}
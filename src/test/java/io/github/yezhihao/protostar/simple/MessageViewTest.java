@@ -0,0 +1,129 @@
+package io.github.yezhihao.protostar.simple;
+
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.MessageView;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * MessageView逐个读取的字段与readFrom一致，变长字段之后的偏移量在首次访问时计算
+ */
+public class MessageViewTest {
+
+    public static void main(String[] args) {
+        RuntimeSchema<Foo> schema = SingleVersionUtil.getRuntimeSchema(Foo.class);
+        MessageView<Foo> view = schema.view();
+        System.out.println(view);
+
+        Foo[] messages = {
+                new Foo(1, 0x12345678, 1.5f, "张三", List.of(new Item(1, 10), new Item(2, 20)), 300, 2.25, LocalDateTime.of(2020, 7, 7, 19, 23, 59), "end"),
+                new Foo(2, -1, -0.5f, "", List.of(), 65535, -1e10, LocalDateTime.of(2021, 1, 1, 0, 0, 0), "李四")
+        };
+        //前置一个字节，验证按readerIndex计算位置
+        ByteBuf buffer = Unpooled.buffer(128).writeByte(0xFF);
+        for (Foo message : messages) {
+            int begin = buffer.writerIndex();
+            schema.writeTo(buffer, message);
+            int size = buffer.writerIndex() - begin;
+
+            buffer.readerIndex(begin);
+            Foo expected = schema.readFrom(buffer.duplicate());
+            view.wrap(buffer);
+
+            //先访问变长字段之后的字段，再访问之前的字段
+            check("seq", expected.seq, view.getInt(view.indexOf("seq")));
+            check("rate", expected.rate, view.getDouble(view.indexOf("rate")));
+            check("time", expected.time, view.get("time"));
+            check("tail", expected.tail, view.get("tail"));
+            check("id", expected.id, view.getInt(view.indexOf("id")));
+            check("value", expected.value, view.getLong(view.indexOf("value")));
+            check("score", (double) expected.score, view.getDouble(view.indexOf("score")));
+            check("name", expected.name, view.get("name"));
+            check("items", expected.items, view.get("items"));
+            check("size", size, view.size());
+            check("readerIndex", begin, buffer.readerIndex());
+            System.out.println(expected.id + " " + view.position(view.indexOf("seq")) + "/" + size + " equal");
+            buffer.readerIndex(buffer.writerIndex());
+        }
+    }
+
+    private static void check(String name, Object expected, Object actual) {
+        if (!Objects.equals(expected, actual))
+            throw new AssertionError(name + ": " + expected + " != " + actual);
+    }
+
+    public static class Foo {
+        @Field(length = 1, desc = "ID")
+        private int id;
+        @Field(length = 4, desc = "数值")
+        private long value;
+        @Field(desc = "分数")
+        private float score;
+        @Field(lengthUnit = 1, desc = "名称")
+        private String name;
+        @Field(totalUnit = 1, desc = "列表")
+        private List<Item> items;
+        @Field(length = 2, desc = "流水号")
+        private int seq;
+        @Field(desc = "比率")
+        private double rate;
+        @Field(charset = "BCD", desc = "时间")
+        private LocalDateTime time;
+        @Field(lengthUnit = 1, desc = "结尾")
+        private String tail;
+
+        public Foo() {
+        }
+
+        public Foo(int id, long value, float score, String name, List<Item> items, int seq, double rate, LocalDateTime time, String tail) {
+            this.id = id;
+            this.value = value;
+            this.score = score;
+            this.name = name;
+            this.items = items;
+            this.seq = seq;
+            this.rate = rate;
+            this.time = time;
+            this.tail = tail;
+        }
+    }
+
+    public static class Item {
+        @Field(length = 1, desc = "编号")
+        private int no;
+        @Field(length = 2, desc = "数值")
+        private int value;
+
+        public Item() {
+        }
+
+        public Item(int no, int value) {
+            this.no = no;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Item))
+                return false;
+            Item that = (Item) o;
+            return no == that.no && value == that.value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(no, value);
+        }
+
+        @Override
+        public String toString() {
+            return no + "/" + value;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.yezhihao.protostar.simple;
+
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.*;
+
+/**
+ * recycle回收的消息、容器与嵌套消息只由readPooled复用，readFrom总是创建新对象
+ */
+public class PoolTest {
+
+    public static void main(String[] args) {
+        RuntimeSchema<Foo> schema = SingleVersionUtil.getRuntimeSchema(Foo.class);
+        Foo foo = new Foo();
+        foo.id = 5;
+        foo.items = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            foo.items.add(new Item(i, i + 1));
+        ByteBuf buffer = Unpooled.buffer();
+        schema.writeTo(buffer, foo);
+
+        Foo first = schema.readPooled(buffer.duplicate());
+        Set<Object> recycled = Collections.newSetFromMap(new IdentityHashMap<>());
+        recycled.add(first);
+        recycled.add(first.items);
+        recycled.addAll(first.items);
+        schema.recycle(first);
+
+        Foo plain = schema.readFrom(buffer.duplicate());
+        System.out.println("readFrom reused: " + reused(recycled, plain));
+
+        Foo pooled = schema.readPooled(buffer.duplicate());
+        System.out.println("readPooled reused: " + reused(recycled, pooled));
+        System.out.println(pooled.id + " " + pooled.items);
+    }
+
+    private static int reused(Set<Object> recycled, Foo foo) {
+        int count = 0;
+        if (recycled.contains(foo)) count++;
+        if (recycled.contains(foo.items)) count++;
+        for (Item item : foo.items)
+            if (recycled.contains(item)) count++;
+        return count;
+    }
+
+    public static class Foo {
+        @Field(length = 1, desc = "ID")
+        private int id;
+        @Field(totalUnit = 1, desc = "列表")
+        private List<Item> items;
+    }
+
+    public static class Item {
+        @Field(length = 2, desc = "编号")
+        private int no;
+        @Field(length = 1, desc = "数值")
+        private int value;
+
+        public Item() {
+        }
+
+        public Item(int no, int value) {
+            this.no = no;
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return no + "/" + value;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.yezhihao.protostar.simple;
+
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetectorFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * retained字段的引用计数与泄漏检测，须在创建任何ByteBuf之前替换泄漏检测器
+ */
+public class RetainedTest {
+
+    private static final AtomicInteger LEAKS = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+        ResourceLeakDetectorFactory.setResourceLeakDetectorFactory(new CountingFactory());
+
+        RuntimeSchema<Media> schema = SingleVersionUtil.getRuntimeSchema(Media.class);
+        byte[] payload = new byte[4096];
+        for (int i = 0; i < payload.length; i++)
+            payload[i] = (byte) i;
+
+        //正确用法：输入释放后payload仍可用，release后全部归还
+        for (int i = 0; i < 100; i++) {
+            ByteBuf input = encode(schema, payload);
+            Media media = schema.readFrom(input);
+            if (i == 0)
+                System.out.println("refCnt after decode: " + input.refCnt());
+            input.release();
+            boolean same = ByteBufUtil.equals(media.payload, Unpooled.wrappedBuffer(payload));
+            schema.release(media);
+            if (!same || media.payload != null || input.refCnt() != 0)
+                throw new AssertionError("release failed");
+        }
+        gc();
+        System.out.println("leaks after release: " + LEAKS.get());
+
+        //readPooled + recycle同样释放
+        for (int i = 0; i < 100; i++) {
+            ByteBuf input = encode(schema, payload);
+            Media media = schema.readPooled(input);
+            input.release();
+            schema.recycle(media);
+            if (input.refCnt() != 0)
+                throw new AssertionError("recycle failed");
+        }
+        gc();
+        System.out.println("leaks after recycle: " + LEAKS.get());
+
+        //record的字段不可置null，重复release不抛出异常
+        RuntimeSchema<Clip> clipSchema = SingleVersionUtil.getRuntimeSchema(Clip.class);
+        ByteBuf clipInput = encode(schema, payload);
+        Clip clip = clipSchema.readFrom(clipInput);
+        clipInput.release();
+        clipSchema.release(clip);
+        clipSchema.release(clip);
+        System.out.println("record refCnt after release: " + clip.payload().refCnt());
+
+        //非池化的输入与retainedSlice共用计数，重复release不能释放调用方持有的输入
+        ByteBuf pooled = encode(schema, payload);
+        ByteBuf unpooled = Unpooled.copiedBuffer(pooled);
+        pooled.release();
+        clip = clipSchema.readFrom(unpooled);
+        clipSchema.release(clip);
+        clipSchema.release(clip);
+        if (unpooled.refCnt() != 1 || unpooled.getInt(0) != 1)
+            throw new AssertionError("input released by record: " + unpooled.refCnt());
+        unpooled.release();
+        System.out.println("unpooled input refCnt after record release: 1");
+
+        //未调用release，泄漏检测器应报告
+        for (int i = 0; i < 10; i++) {
+            ByteBuf input = encode(schema, payload);
+            schema.readFrom(input);
+            input.release();
+        }
+        gc();
+        System.out.println("leaks without release: " + (LEAKS.get() > 0));
+    }
+
+    private static ByteBuf encode(RuntimeSchema<Media> schema, byte[] payload) {
+        Media media = new Media();
+        media.id = 1;
+        media.payload = Unpooled.wrappedBuffer(payload);
+        ByteBuf output = PooledByteBufAllocator.DEFAULT.directBuffer(payload.length + 8);
+        schema.writeTo(output, media);
+        return output;
+    }
+
+    /** 泄漏在对象被回收后、下一次分配时报告 */
+    private static void gc() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(20);
+            PooledByteBufAllocator.DEFAULT.directBuffer(1).release();
+        }
+    }
+
+    public static class Media {
+        @Field(length = 4, desc = "ID")
+        private int id;
+        @Field(lengthUnit = 4, desc = "数据包", retained = true)
+        private ByteBuf payload;
+    }
+
+    public record Clip(
+            @Field(length = 4, desc = "ID")
+            int id,
+            @Field(lengthUnit = 4, desc = "数据包", retained = true)
+            ByteBuf payload) {
+    }
+
+    private static class CountingFactory extends ResourceLeakDetectorFactory {
+        /** 抽象方法已废弃，转到newResourceLeakDetector(Class, int) */
+        @Override
+        @Deprecated
+        public <T> ResourceLeakDetector<T> newResourceLeakDetector(Class<T> resource, int samplingInterval, long maxActive) {
+            return newResourceLeakDetector(resource, samplingInterval);
+        }
+
+        @Override
+        public <T> ResourceLeakDetector<T> newResourceLeakDetector(Class<T> resource, int samplingInterval) {
+            return new ResourceLeakDetector<T>(resource, samplingInterval) {
+                @Override
+                protected boolean needReport() {
+                    return true;
+                }
+
+                @Override
+                protected void reportTracedLeak(String resourceType, String records) {
+                    LEAKS.incrementAndGet();
+                }
+
+                @Override
+                protected void reportUntracedLeak(String resourceType) {
+                    LEAKS.incrementAndGet();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.yezhihao.protostar.simple;
+
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.field.BasicField;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.github.yezhihao.protostar.schema.StringSchema;
+import io.github.yezhihao.protostar.util.StringCache;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 字符串字段的编解码，容量恰好等于编码长度的缓冲区也能写入，cacheSize的命中与覆盖，各字符集的STR读写
+ */
+public class StringTest {
+
+    public static void main(String[] args) {
+        RuntimeSchema<Gbk> schema = SingleVersionUtil.getRuntimeSchema(Gbk.class);
+        Gbk gbk = new Gbk("张三", "北京市海淀区中关村大街1号");
+
+        int size = schema.sizeOf(gbk);
+        ByteBuf heap = Unpooled.buffer(size, size);
+        schema.writeTo(heap, gbk);
+        System.out.println(ByteBufUtil.hexDump(heap));
+        check(gbk, schema.readFrom(heap));
+
+        ByteBuf direct = Unpooled.directBuffer(size, size);
+        schema.writeTo(direct, gbk);
+        check(gbk, schema.readFrom(direct));
+        direct.release();
+        System.out.println("tight buffer: " + size);
+
+        cache();
+        charsets();
+    }
+
+    /** 非UTF-8字符集的STR读写与原先的byte[]实现一致：去除两端的0，定长时右侧补0或截取右侧 */
+    private static void charsets() {
+        String[] charsets = {"GBK", "GB18030", "Big5", "UTF-16BE", "ISO-8859-1", "US-ASCII", "UTF-8"};
+        String[] values = {"", "A", "abc 123", "张三", "北京市海淀区", "€½é", "\uD83D\uDE00x", "a\u0000b"};
+        int count = 0;
+        for (String name : charsets) {
+            Charset charset = Charset.forName(name);
+            for (int length : new int[]{-1, 3, 8, 16}) {
+                BasicField<String> schema = StringSchema.getInstance(name, length, 0);
+                for (String value : values) {
+                    ByteBuf output = Unpooled.buffer(4);
+                    schema.writeTo(output, value);
+                    byte[] expected = oldWrite(charset, length, value);
+                    check(name + "/" + length + " write " + value, ByteBufUtil.hexDump(expected), ByteBufUtil.hexDump(output));
+
+                    //两端补0后从堆内存与直接内存读取
+                    byte[] padded = new byte[expected.length + 4];
+                    System.arraycopy(expected, 0, padded, 2, expected.length);
+                    for (byte[] bytes : new byte[][]{expected, padded}) {
+                        int len = length < 0 ? bytes.length : Math.min(length, bytes.length);
+                        String old = oldRead(charset, bytes, len);
+                        for (ByteBuf input : new ByteBuf[]{Unpooled.wrappedBuffer(bytes), Unpooled.directBuffer(bytes.length).writeBytes(bytes)}) {
+                            check(name + "/" + length + " read " + value, old, schema.readFrom(input.slice(0, len)));
+                            input.release();
+                        }
+                    }
+                    count++;
+                }
+            }
+        }
+        System.out.println("charsets: " + count);
+    }
+
+    private static String oldRead(Charset charset, byte[] bytes, int len) {
+        int st = 0;
+        while ((st < len) && (bytes[st] == 0))
+            st++;
+        while ((st < len) && (bytes[len - 1] == 0))
+            len--;
+        return new String(bytes, st, len - st, charset);
+    }
+
+    private static byte[] oldWrite(Charset charset, int length, String value) {
+        ByteBuffer buffer = charset.encode(value);
+        if (length < 0)
+            return Arrays.copyOfRange(buffer.array(), 0, buffer.limit());
+        byte[] bytes = new byte[length];
+        int srcPos = length - buffer.limit();
+        if (srcPos >= 0)
+            buffer.get(bytes, 0, buffer.limit());
+        else
+            buffer.position(-srcPos).get(bytes);
+        return bytes;
+    }
+
+    /** 相同的原始字节命中缓存返回同一个String，映射到同一位置的其他值覆盖旧值 */
+    private static void cache() {
+        RuntimeSchema<Terminal> schema = SingleVersionUtil.getRuntimeSchema(Terminal.class);
+        StringCache cache = StringCache.caches().stream().filter(c -> c.name().equals("Terminal.clientId")).findFirst().get();
+
+        ByteBuf a = encode(schema, "13800000001");
+        String first = schema.readFrom(a.duplicate()).clientId;
+        String second = schema.readFrom(a.duplicate()).clientId;
+        check("13800000001", first);
+        if (first != second || cache.hits() != 1 || cache.misses() != 1)
+            throw new AssertionError("hit: " + cache);
+
+        //找到与a映射到同一位置的值，读取后a被覆盖，再次读取a未命中
+        ByteBuf b = null;
+        for (long id = 13800000002L; b == null; id++) {
+            ByteBuf candidate = encode(schema, Long.toString(id));
+            if ((hash(candidate) & (cache.capacity() - 1)) == (hash(a) & (cache.capacity() - 1)))
+                b = candidate;
+        }
+        String other = schema.readFrom(b.duplicate()).clientId;
+        String third = schema.readFrom(a.duplicate()).clientId;
+        check(first, third);
+        if (third == first || cache.hits() != 1 || cache.misses() != 3)
+            throw new AssertionError("evict: " + cache);
+        if (schema.readFrom(a.duplicate()).clientId != third || cache.hits() != 2)
+            throw new AssertionError("hit after evict: " + cache);
+        System.out.println("cache: " + other + " evicted " + first + ", " + cache);
+    }
+
+    private static ByteBuf encode(RuntimeSchema<Terminal> schema, String clientId) {
+        ByteBuf buffer = Unpooled.buffer(6);
+        schema.writeTo(buffer, new Terminal(clientId));
+        return buffer;
+    }
+
+    private static int hash(ByteBuf buffer) {
+        return StringCache.hash(buffer, buffer.readerIndex(), buffer.readableBytes());
+    }
+
+    private static void check(Object expected, Object actual) {
+        if (!expected.equals(actual))
+            throw new AssertionError(expected + " != " + actual);
+    }
+
+    private static void check(String name, Object expected, Object actual) {
+        if (!expected.equals(actual))
+            throw new AssertionError(name + ": " + expected + " != " + actual);
+    }
+
+    public static class Terminal {
+        @Field(length = 6, charset = "BCD", desc = "终端手机号", cacheSize = 4)
+        private String clientId;
+
+        public Terminal() {
+        }
+
+        public Terminal(String clientId) {
+            this.clientId = clientId;
+        }
+    }
+
+    public static class Gbk {
+        @Field(lengthUnit = 1, desc = "名称")
+        private String name;
+        @Field(desc = "地址")
+        private String address;
+
+        public Gbk() {
+        }
+
+        public Gbk(String name, String address) {
+            this.name = name;
+            this.address = address;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Gbk))
+                return false;
+            Gbk that = (Gbk) o;
+            return Objects.equals(name, that.name) && Objects.equals(address, that.address);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, address);
+        }
+
+        @Override
+        public String toString() {
+            return name + "," + address;
+        }
+    }
+}
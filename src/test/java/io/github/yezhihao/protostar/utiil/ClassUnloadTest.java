@@ -0,0 +1,99 @@
+package io.github.yezhihao.protostar.utiil;
+
+import io.github.yezhihao.protostar.ProtostarUtil;
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+
+/**
+ * 按Class缓存的Schema不阻止类卸载：丢弃ClassLoader后类与Schema被回收，重新加载的同名类得到新的Schema
+ */
+public class ClassUnloadTest {
+
+    public static void main(String[] args) throws Exception {
+        WeakReference<Class<?>>[] refs = new WeakReference[4];
+        for (int i = 0; i < refs.length; i++)
+            refs[i] = load();
+
+        for (int i = 0; i < 50 && !cleared(refs); i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        if (!cleared(refs))
+            throw new AssertionError("class not unloaded");
+        //回收后重新加载，缓存中没有残留的Schema
+        load();
+        System.out.println("unloaded: " + refs.length);
+    }
+
+    /** 在单独的ClassLoader中加载Foo并获取Schema，返回类的弱引用 */
+    private static WeakReference<Class<?>> load() throws Exception {
+        Class<?> type = new IsolatedLoader(Foo.class.getName()).loadClass(Foo.class.getName());
+        if (type == Foo.class)
+            throw new AssertionError("not isolated");
+
+        RuntimeSchema single = SingleVersionUtil.getRuntimeSchema(type);
+        RuntimeSchema multi = ProtostarUtil.getRuntimeSchema(type, 0);
+        if (single == null || multi == null || single != SingleVersionUtil.getRuntimeSchema(type) || multi != ProtostarUtil.getRuntimeSchema(type, 0))
+            throw new AssertionError("lookup");
+        //与原类的Schema相互独立
+        if (single == SingleVersionUtil.getRuntimeSchema(Foo.class))
+            throw new AssertionError("shared schema");
+
+        ByteBuf buffer = Unpooled.buffer(8).writeInt(0x01020304);
+        Object message = single.readFrom(buffer);
+        if (message.getClass() != type || !"16909060".equals(message.toString()))
+            throw new AssertionError("read " + message);
+        return new WeakReference<>(type);
+    }
+
+    private static boolean cleared(WeakReference<?>[] refs) {
+        for (WeakReference<?> ref : refs)
+            if (ref.get() != null)
+                return false;
+        return true;
+    }
+
+    /** 只由自身加载指定的类，其余类委托给父加载器 */
+    private static class IsolatedLoader extends ClassLoader {
+        private final String name;
+
+        IsolatedLoader(String name) {
+            super(ClassUnloadTest.class.getClassLoader());
+            this.name = name;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!this.name.equals(name))
+                return super.loadClass(name, resolve);
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                if (type != null)
+                    return type;
+                try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                    byte[] bytes = in.readAllBytes();
+                    return defineClass(name, bytes, 0, bytes.length);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        }
+    }
+
+    public static class Foo {
+        @Field(length = 4, desc = "ID")
+        private int id;
+
+        @Override
+        public String toString() {
+            return String.valueOf(id);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.yezhihao.protostar.utiil;
+
+import io.github.yezhihao.protostar.util.CharsBuilder;
+import io.github.yezhihao.protostar.util.HexCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.internal.StringUtil;
+
+import java.util.Random;
+
+/**
+ * HexCodec与原CharsBuilder实现(StringUtil.toHexStringPadded、decodeHexDump)的结果一致
+ */
+public class HexCodecTest {
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        int count = 0;
+        for (int length = 0; length <= 24; length++) {
+            for (int round = 0; round < 20; round++) {
+                byte[] bytes = new byte[length];
+                random.nextBytes(bytes);
+                if (round % 4 == 0 && length > 1)
+                    bytes[0] = 0;
+
+                //读取：堆内存与直接内存，前置一个字节验证偏移量
+                for (ByteBuf input : new ByteBuf[]{Unpooled.buffer(length + 1), Unpooled.directBuffer(length + 1)}) {
+                    input.writeByte(0xAA).writeBytes(bytes).skipBytes(1);
+                    check("hex", oldHex(bytes), HexCodec.readHex(input.duplicate(), length));
+                    check("bcd", oldBCD(bytes), HexCodec.readBCD(input, length));
+                    input.release();
+                }
+
+                //写入：定长时左侧补0或截取右侧，变长时奇数长度左侧补0
+                String value = oldHex(bytes).substring(random.nextInt(length * 2 + 1));
+                if (round % 2 == 0)
+                    value = value.toUpperCase();
+                for (int fixed : new int[]{-1, length >> 1, length, length + 2}) {
+                    ByteBuf output = Unpooled.buffer();
+                    HexCodec.writeHex(output, value, fixed);
+                    check("write " + value + "/" + fixed, ByteBufUtil.hexDump(oldWrite(value, fixed)), ByteBufUtil.hexDump(output));
+                }
+                count++;
+            }
+        }
+        System.out.println("hex/bcd equal: " + count);
+    }
+
+    private static void check(String name, String expected, String actual) {
+        if (!expected.equals(actual))
+            throw new AssertionError(name + ": " + expected + " != " + actual);
+    }
+
+    private static String oldHex(byte[] bytes) {
+        CharsBuilder cb = new CharsBuilder(bytes.length << 1);
+        StringUtil.toHexStringPadded(cb, bytes);
+        return cb.toString();
+    }
+
+    private static String oldBCD(byte[] bytes) {
+        CharsBuilder cb = new CharsBuilder(bytes.length << 1);
+        StringUtil.toHexStringPadded(cb, bytes);
+        return cb.leftStrip('0');
+    }
+
+    private static byte[] oldWrite(String value, int length) {
+        boolean fixed = length > -1;
+        int charSize = length << 1;
+        int strLength = value.length();
+        if (!fixed) charSize = strLength + (strLength & 1);
+
+        char[] chars = new char[charSize];
+        int i = charSize - strLength;
+        if (i >= 0) {
+            value.getChars(0, charSize - i, chars, i);
+            while (i > 0)
+                chars[--i] = '0';
+        } else {
+            value.getChars(-i, charSize - i, chars, 0);
+        }
+        return StringUtil.decodeHexDump(new CharsBuilder(chars));
+    }
+}
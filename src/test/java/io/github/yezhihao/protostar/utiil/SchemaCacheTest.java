@@ -0,0 +1,167 @@
+package io.github.yezhihao.protostar.utiil;
+
+import io.github.yezhihao.protostar.ProtostarUtil;
+import io.github.yezhihao.protostar.SingleVersionUtil;
+import io.github.yezhihao.protostar.annotation.Field;
+import io.github.yezhihao.protostar.schema.RuntimeSchema;
+import io.github.yezhihao.protostar.util.SchemaCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 多个线程同时首次获取同一个类时只构建一次，得到同一个实例
+ * 同一线程内或两个线程分别构建环上的类时抛出IllegalStateException，而不是栈溢出或死锁
+ */
+public class SchemaCacheTest {
+
+    private static final int THREADS = 8;
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            concurrent(executor);
+            cycle();
+            crossThreadCycle(executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void concurrent(ExecutorService executor) throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        SchemaCache<Object> cache = new SchemaCache<>(type -> {
+            builds.incrementAndGet();
+            entered.countDown();
+            sleep(50);
+            return new Object();
+        });
+        Object first = same(executor, () -> cache.get(Foo.class));
+        if (builds.get() != 1 || first != cache.get(Foo.class))
+            throw new AssertionError("builds " + builds.get());
+
+        //构建失败时不缓存，下一次获取重新构建
+        AtomicInteger failures = new AtomicInteger();
+        SchemaCache<Object> failing = new SchemaCache<>(type -> {
+            if (failures.incrementAndGet() == 1)
+                throw new IllegalArgumentException("first build");
+            return type.getSimpleName();
+        });
+        try {
+            failing.get(Foo.class);
+            throw new AssertionError("failed build cached");
+        } catch (IllegalArgumentException expected) {
+        }
+        if (!"Foo".equals(failing.get(Foo.class)) || failures.get() != 2)
+            throw new AssertionError("rebuild " + failures.get());
+
+        RuntimeSchema<Foo> single = same(executor, () -> SingleVersionUtil.getRuntimeSchema(Foo.class));
+        RuntimeSchema<Foo> multi = same(executor, () -> ProtostarUtil.getRuntimeSchema(Foo.class, 0));
+        if (single == null || multi == null || single != SingleVersionUtil.getRuntimeSchema(Foo.class))
+            throw new AssertionError("schema");
+        System.out.println("concurrent builds: " + builds.get());
+    }
+
+    /** 所有线程同时开始获取，返回的实例必须相同 */
+    private static <T> T same(ExecutorService executor, Supplier<T> task) throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        List<Future<T>> futures = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                barrier.await();
+                return task.get();
+            }));
+        }
+        T first = futures.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<T> future : futures) {
+            if (future.get(10, TimeUnit.SECONDS) != first)
+                throw new AssertionError("different instances");
+        }
+        return first;
+    }
+
+    private static void cycle() {
+        SchemaCache<Object>[] cache = new SchemaCache[1];
+        cache[0] = new SchemaCache<>(type -> cache[0].get(type == Foo.class ? Bar.class : Foo.class));
+        expectCycle("cache", () -> cache[0].get(Foo.class));
+        //失败后未缓存，再次获取同样抛出
+        expectCycle("cache again", () -> cache[0].get(Bar.class));
+
+        expectCycle("single", () -> SingleVersionUtil.getRuntimeSchema(Node.class));
+        expectCycle("multi", () -> ProtostarUtil.getRuntimeSchema(Node.class, 0));
+        System.out.println("cycle: IllegalStateException");
+    }
+
+    private static void expectCycle(String name, Runnable task) {
+        try {
+            task.run();
+            throw new AssertionError(name + ": cycle not detected");
+        } catch (IllegalStateException e) {
+            if (!e.getMessage().contains("循环引用"))
+                throw new AssertionError(name + ": " + e, e);
+        }
+    }
+
+    /** 线程1构建Foo时需要Bar，线程2构建Bar时需要Foo，两个线程都进入构建后再获取对方 */
+    private static void crossThreadCycle(ExecutorService executor) throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        SchemaCache<Object>[] cache = new SchemaCache[1];
+        Function<Class<?>, Object> builder = type -> {
+            started.countDown();
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return cache[0].get(type == Foo.class ? Bar.class : Foo.class);
+        };
+        cache[0] = new SchemaCache<>(builder);
+
+        Future<?> a = executor.submit(() -> cache[0].get(Foo.class));
+        Future<?> b = executor.submit(() -> cache[0].get(Bar.class));
+        int detected = 0;
+        for (Future<?> future : new Future[]{a, b}) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                throw new AssertionError("cycle not detected");
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof IllegalStateException))
+                    throw new AssertionError(e.getCause());
+                detected++;
+            } catch (TimeoutException e) {
+                throw new AssertionError("deadlock", e);
+            }
+        }
+        System.out.println("cross thread cycle: " + detected + " IllegalStateException");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static class Foo {
+        @Field(length = 4, desc = "ID")
+        private int id;
+    }
+
+    public static class Bar {
+        @Field(length = 4, desc = "ID")
+        private int id;
+    }
+
+    public static class Node {
+        @Field(length = 4, desc = "ID")
+        private int id;
+        @Field(lengthUnit = 1, desc = "下一个")
+        private Node next;
+    }
+}